@@ -3,15 +3,24 @@ package org.develop.client;
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
 import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
 import org.develop.commons.model.mainUse.Funko;
+import org.develop.commons.model.mainUse.FunkoPage;
 import org.develop.commons.model.mainUse.Modelo;
+import org.develop.commons.model.mainUse.MyUUIDGenerator;
 import org.develop.commons.model.serverUse.Login;
+import org.develop.commons.model.serverUse.PageRequest;
 import org.develop.commons.model.serverUse.Request;
 import org.develop.commons.model.serverUse.Response;
 import org.develop.commons.utils.adapters.LocalDateAdapter;
 import org.develop.commons.utils.adapters.LocalDateTimeAdapter;
 import org.develop.commons.utils.adapters.UUIDAdapter;
 import org.develop.commons.utils.properties.PropertiesReader;
+import org.develop.commons.utils.protocol.FrameProtocol;
+import org.develop.commons.utils.protocol.FrameReader;
+import org.develop.commons.utils.protocol.FrameWriter;
+import org.develop.commons.utils.protocol.FunkoCodec;
 import org.develop.exceptions.client.ClientException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -19,11 +28,14 @@ import org.slf4j.LoggerFactory;
 import javax.net.ssl.SSLSocket;
 import javax.net.ssl.SSLSocketFactory;
 import java.io.*;
+import java.net.ProtocolException;
+import java.nio.ByteBuffer;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
@@ -48,6 +60,9 @@ public class Client {
     private SSLSocket socket;
     private PrintWriter out;
     private BufferedReader in;
+    private FrameWriter frameOut;
+    private FrameReader frameIn;
+    private long nextRequestId = 0;
 
 
     /**
@@ -83,16 +98,26 @@ public class Client {
 
             sendRequestGetAllFunkos(token);
 
+            sendRequestGetAllFunkosStream(token);
+
+            sendRequestGetFunkoPages(token, 25);
+
             sendRequestGetFunkoById(token,"10");
 
+            sendRequestGetFunkosByIdPipelined(token, List.of("1","2","3"));
+
             sendRequestGetFunkosByModel(token,"Marvel");
 
+            sendRequestGetFunkosByName(token,"stitch");
+
+            sendRequestGetFunkosByName(token,"Spider*");
+
             sendRequestGetFunkosByDate(token,"2023");
 
             Funko fkn = Funko.builder()
                     .myId(100L)
                             .id(100)
-                            .uuid(UUID.randomUUID())
+                            .uuid(MyUUIDGenerator.getInstance().generate())
                             .name("Funko Update Num 10 NUEVO")
                                     .precio(1000.1)
                                             .modelo(Modelo.OTROS)
@@ -108,6 +133,10 @@ public class Client {
 
             sendRequestGetFunkoById(token,"91");
 
+            sendRequestBatchPostFunkos(token, List.of(
+                    Funko.builder().name("Batch 1").modelo(Modelo.ANIME).precio(12.5).fecha_lanzamiento(LocalDate.now()).build(),
+                    Funko.builder().name("Batch 2").modelo(Modelo.DISNEY).precio(15.0).fecha_lanzamiento(LocalDate.now()).build()));
+
             sendRequestDeleteFunko(token,Funko.builder().id(19).build());
 
             sendRequestGetFunkoById(token,"19");
@@ -139,7 +168,9 @@ public class Client {
 
     /**
      * Abre una conexion con el servidor utilizando SSL y configura las propiedades de seguridad.
-     * Despues de establecer la conexion, inicializa los flujos de entrada y salida.
+     * Despues de establecer la conexion, inicializa los flujos de entrada y salida y, si asi se ha configurado,
+     * negocia el protocolo de tramas y el formato de los Funkos: "legacy" (cadena JSON en content), "inline"
+     * (JSON dentro del sobre) o "binary".
      *
      * @throws IOException Si ocurre un error de E/S al abrir la conexion.
      */
@@ -156,8 +187,24 @@ public class Client {
 
         logger.debug("Conectando al server: " + HOST + ":" + PORT);
 
-        out = new PrintWriter(socket.getOutputStream(), true);
-        in = new BufferedReader(new InputStreamReader(socket.getInputStream()));
+        if ("framed".equals(myConfig.get("protocol"))) {
+            int requestedFlags = switch (myConfig.get("payloadFormat")) {
+                case "binary" -> FrameProtocol.FLAG_BINARY_FUNKOS;
+                case "inline" -> FrameProtocol.FLAG_INLINE_JSON;
+                default -> 0;
+            };
+            OutputStream output = new BufferedOutputStream(socket.getOutputStream());
+            InputStream input = new BufferedInputStream(socket.getInputStream());
+            FrameProtocol.writeHello(output, requestedFlags);
+            output.flush();
+            int flags = FrameProtocol.readHello(input);
+            frameOut = new FrameWriter(output);
+            frameIn = new FrameReader(input);
+            logger.debug("Protocolo de tramas negociado con el servidor, opciones: " + flags);
+        } else {
+            out = new PrintWriter(socket.getOutputStream(), true);
+            in = new BufferedReader(new InputStreamReader(socket.getInputStream()));
+        }
         logger.info("✅ Cliente conectado a " + HOST + ":" + PORT);
 
     }
@@ -165,7 +212,7 @@ public class Client {
     /**
      * Lee el archivo de configuracion del cliente y obtiene las propiedades necesarias.
      *
-     * @return Un mapa que contiene las propiedades clave ("keyFile" y "keyPassword").
+     * @return Un mapa que contiene las propiedades clave ("keyFile", "keyPassword", "protocol" y "payloadFormat").
      * @throws ClientException Si se producen errores al leer el archivo de configuracion o si faltan propiedades.
      */
     public static Map<String,String> readConfigFile(){
@@ -187,6 +234,8 @@ public class Client {
             Map<String,String> configMap = new HashMap<>();
             configMap.put("keyFile", keyFile);
             configMap.put("keyPassword", keyPassword);
+            configMap.put("protocol", propertiesReader.getProperty("protocol", "line"));
+            configMap.put("payloadFormat", propertiesReader.getProperty("payloadFormat", "inline"));
 
             return configMap;
         }catch (FileNotFoundException e){
@@ -200,6 +249,165 @@ public class Client {
         }
     }
 
+    /**
+     * Escribe una solicitud sin enviarla todavia, como linea JSON o como trama segun el protocolo negociado.
+     *
+     * @param request La solicitud a escribir.
+     * @throws IOException Si ocurre un error de E/S al escribir la solicitud.
+     */
+    private void writeRequest(Request request) throws IOException {
+        if (frameOut != null) {
+            frameOut.writeJson(FrameProtocol.REQUEST, gson, request);
+        } else {
+            out.print(gson.toJson(request) + "\n");
+        }
+    }
+
+    /**
+     * Envia al servidor las solicitudes escritas hasta el momento.
+     *
+     * @throws IOException Si ocurre un error de E/S al enviar las solicitudes.
+     */
+    private void flushRequests() throws IOException {
+        if (frameOut != null) {
+            frameOut.flush();
+        } else {
+            out.flush();
+        }
+    }
+
+    /**
+     * Escribe y envia una solicitud al servidor.
+     *
+     * @param request La solicitud a enviar.
+     * @throws IOException Si ocurre un error de E/S al enviar la solicitud.
+     */
+    private void sendRequest(Request request) throws IOException {
+        writeRequest(request);
+        flushRequests();
+    }
+
+    /**
+     * Lee la siguiente respuesta del servidor, como linea JSON o como trama segun el protocolo negociado.
+     * Si se ha negociado la codificacion binaria o la de JSON en el sobre, las respuestas OK con Funkos llegan ya decodificadas.
+     *
+     * @return La respuesta recibida.
+     * @throws IOException Si ocurre un error de E/S, el servidor cierra la conexion o envia una trama inesperada.
+     */
+    private Reply readResponse() throws IOException {
+        if (frameIn != null) {
+            if (!frameIn.next()) {
+                throw new EOFException("Connection closed by server");
+            }
+            switch (frameIn.type()) {
+                case FrameProtocol.RESPONSE -> {
+                    return readEnvelope(frameIn.reader());
+                }
+                case FrameProtocol.FUNKO, FrameProtocol.FUNKO_LIST, FrameProtocol.FUNKO_CHUNK -> {
+                    ByteBuffer payload = frameIn.payload();
+                    DataInputStream data = new DataInputStream(new ByteArrayInputStream(payload.array(), 0, payload.limit()));
+                    Long requestId = FunkoCodec.readRequestId(data);
+                    List<Funko> funkos = frameIn.type() == FrameProtocol.FUNKO
+                            ? List.of(FunkoCodec.readFunko(data))
+                            : FunkoCodec.readFunkos(data);
+                    Response.Status status = frameIn.type() == FrameProtocol.FUNKO_CHUNK ? Response.Status.CHUNK : Response.Status.OK;
+                    return new Reply(new Response(status, null, null, requestId), funkos, null);
+                }
+                case FrameProtocol.FUNKO_PAGE -> {
+                    ByteBuffer payload = frameIn.payload();
+                    DataInputStream data = new DataInputStream(new ByteArrayInputStream(payload.array(), 0, payload.limit()));
+                    Long requestId = FunkoCodec.readRequestId(data);
+                    FunkoPage page = FunkoCodec.readFunkoPage(data);
+                    return new Reply(new Response(Response.Status.OK, null, null, requestId), page.funkos(), page.nextCursor());
+                }
+                default -> throw new ProtocolException("Unexpected frame type: " + frameIn.type());
+            }
+        }
+        String line = in.readLine();
+        if (line == null) {
+            throw new EOFException("Connection closed by server");
+        }
+        return readEnvelope(new StringReader(line));
+    }
+
+    /**
+     * Lee en una sola pasada el sobre JSON de una respuesta. Acepta tanto el formato clasico, con la carga como
+     * cadena JSON en content, como el formato con los Funkos dentro del propio sobre.
+     *
+     * @param reader El texto JSON de la respuesta.
+     * @return La respuesta, con los Funkos ya decodificados si venian dentro del sobre.
+     * @throws IOException Si el JSON no es valido.
+     */
+    private Reply readEnvelope(Reader reader) throws IOException {
+        Response.Status status = null;
+        String content = null;
+        String createdAt = null;
+        Long requestId = null;
+        List<Funko> funkos = null;
+        Integer nextCursor = null;
+
+        JsonReader json = gson.newJsonReader(reader);
+        json.beginObject();
+        while (json.hasNext()) {
+            String name = json.nextName();
+            if (json.peek() == JsonToken.NULL) {
+                json.nextNull();
+                continue;
+            }
+            switch (name) {
+                case "status" -> status = Response.Status.valueOf(json.nextString());
+                case "content" -> content = json.nextString();
+                case "createdAt" -> createdAt = json.nextString();
+                case "requestId" -> requestId = json.nextLong();
+                case FrameProtocol.NEXT_CURSOR_FIELD -> nextCursor = json.nextInt();
+                case FrameProtocol.FUNKO_FIELD -> funkos = List.of(gson.<Funko>fromJson(json, Funko.class));
+                case FrameProtocol.FUNKOS_FIELD -> funkos = gson.fromJson(json, new TypeToken<List<Funko>>(){}.getType());
+                default -> json.skipValue();
+            }
+        }
+        json.endObject();
+        return new Reply(new Response(status, content, createdAt, requestId), funkos, nextCursor);
+    }
+
+    /**
+     * Obtiene la lista de Funkos de una respuesta OK, ya sea decodificada al leerla o en JSON en el contenido.
+     *
+     * @param reply La respuesta.
+     * @return Los Funkos de la respuesta.
+     */
+    private List<Funko> funkosOf(Reply reply) {
+        if (reply.funkos() != null) {
+            return reply.funkos();
+        }
+        return gson.fromJson(reply.response().content(),new TypeToken<List<Funko>>(){}.getType());
+    }
+
+    /**
+     * Obtiene la pagina de Funkos de una respuesta OK, ya sea decodificada al leerla o en JSON en el contenido.
+     *
+     * @param reply La respuesta.
+     * @return La pagina de la respuesta.
+     */
+    private FunkoPage pageOf(Reply reply) {
+        if (reply.funkos() != null) {
+            return new FunkoPage(reply.funkos(), reply.nextCursor());
+        }
+        return gson.fromJson(reply.response().content(), FunkoPage.class);
+    }
+
+    /**
+     * Obtiene el Funko de una respuesta OK, ya sea decodificado al leerlo o en JSON en el contenido.
+     *
+     * @param reply La respuesta.
+     * @return El Funko de la respuesta.
+     */
+    private Funko funkoOf(Reply reply) {
+        if (reply.funkos() != null) {
+            return reply.funkos().get(0);
+        }
+        return gson.fromJson(reply.response().content(),new TypeToken<Funko>(){}.getType());
+    }
+
     /**
      * Envia una solicitud de inicio de sesion al servidor y recibe un token de autenticacion.
      *
@@ -213,10 +421,10 @@ public class Client {
         Request request = new Request(Request.Type.LOGIN, loginGson, null, LocalDateTime.now().toString());
         logger.debug("Request Send: " + request);
 
-        out.println(gson.toJson(request));
-
         try {
-            Response response = gson.fromJson(in.readLine(),new TypeToken<Response>(){}.getType());
+            sendRequest(request);
+
+            Response response = readResponse().response();
 
             logger.debug("Response Received Type: " + response.status());
 
@@ -244,9 +452,9 @@ public class Client {
         Request request = new Request(Request.Type.SALIR, null, null, LocalDateTime.now().toString());
         logger.debug("Request Sent: " + request);
 
-        out.println(gson.toJson(request));
+        sendRequest(request);
 
-        Response response = gson.fromJson(in.readLine(),new TypeToken<Response>(){}.getType());
+        Response response = readResponse().response();
         logger.debug("Response Received Type: " + response.status());
 
         switch (response.status()){
@@ -270,14 +478,15 @@ public class Client {
         Request request = new Request(Request.Type.GETALL, null, token, LocalDateTime.now().toString());
         logger.debug("Request Send: " + request);
 
-        out.println(gson.toJson(request));
+        sendRequest(request);
 
-        Response response = gson.fromJson(in.readLine(),new TypeToken<Response>(){}.getType());
+        Reply reply = readResponse();
+        Response response = reply.response();
         logger.debug("Response Received Type: " + response.status());
 
         switch (response.status()){
             case OK -> {
-                List<Funko> responseFunkos = gson.fromJson(response.content(),new TypeToken<List<Funko>>(){}.getType());
+                List<Funko> responseFunkos = funkosOf(reply);
                 logger.info("🟢 Los funkos son: " + responseFunkos);
             }
             case ERROR -> logger.error("🔴 Error: " + response.content());
@@ -285,6 +494,83 @@ public class Client {
         }
     }
 
+    /**
+     * Envia una solicitud al servidor para obtener todos los Funkos en streaming y los procesa fragmento a fragmento,
+     * sin esperar a tener el catalogo completo en memoria.
+     *
+     * @param token El token de autenticacion del cliente.
+     * @throws ClientException Si se recibe una respuesta inesperada del servidor.
+     * @throws IOException Si ocurre un error de E/S al enviar la solicitud o recibir las respuestas.
+     */
+    private void sendRequestGetAllFunkosStream(String token) throws ClientException, IOException {
+        Request request = new Request(Request.Type.GETALL_STREAM, null, token, LocalDateTime.now().toString());
+        logger.debug("Request Send: " + request);
+
+        sendRequest(request);
+
+        long received = 0;
+        while (true) {
+            Reply reply = readResponse();
+            Response response = reply.response();
+            switch (response.status()){
+                case CHUNK -> {
+                    List<Funko> chunk = funkosOf(reply);
+                    received += chunk.size();
+                    logger.debug("Chunk Received: " + chunk.size() + " funkos");
+                }
+                case END -> {
+                    logger.info("🟢 Recibidos en streaming " + received + " funkos de " + response.content());
+                    return;
+                }
+                case ERROR -> {
+                    logger.error("🔴 Error: " + response.content());
+                    return;
+                }
+                default -> throw new ClientException("Unexpected response status: " + response.status());
+            }
+        }
+    }
+
+    /**
+     * Recorre el catalogo completo pagina a pagina, pidiendo cada pagina con el cursor devuelto en la anterior
+     * hasta que el servidor indica que no quedan mas.
+     *
+     * @param token El token de autenticacion del cliente.
+     * @param size El numero de Funkos por pagina.
+     * @throws ClientException Si se recibe una respuesta inesperada del servidor.
+     * @throws IOException Si ocurre un error de E/S al enviar las solicitudes o recibir las respuestas.
+     */
+    private void sendRequestGetFunkoPages(String token, int size) throws ClientException, IOException {
+        Integer cursor = null;
+        int pages = 0;
+        long received = 0;
+        do {
+            Request request = new Request(Request.Type.GETPAGE, gson.toJson(new PageRequest(cursor, size)), token, LocalDateTime.now().toString());
+            logger.debug("Request Send: " + request);
+
+            sendRequest(request);
+
+            Reply reply = readResponse();
+            Response response = reply.response();
+            logger.debug("Response Received Type: " + response.status());
+
+            switch (response.status()){
+                case OK -> {
+                    FunkoPage page = pageOf(reply);
+                    pages++;
+                    received += page.funkos().size();
+                    cursor = page.nextCursor();
+                }
+                case ERROR -> {
+                    logger.error("🔴 Error: " + response.content());
+                    return;
+                }
+                default -> throw new ClientException("Unexpected response status: " + response.status());
+            }
+        } while (cursor != null);
+        logger.info("🟢 Recibidos " + received + " funkos en " + pages + " paginas");
+    }
+
     /**
      * Envia una solicitud al servidor para obtener un Funko por su ID.
      *
@@ -297,14 +583,15 @@ public class Client {
         Request request = new Request(Request.Type.GETBYID, id, token, LocalDateTime.now().toString());
         logger.debug("Request Send: " + request);
 
-        out.println(gson.toJson(request));
+        sendRequest(request);
 
-        Response response = gson.fromJson(in.readLine(),new TypeToken<Response>(){}.getType());
+        Reply reply = readResponse();
+        Response response = reply.response();
         logger.debug("Response Received Type: " + response.status());
 
         switch (response.status()){
             case OK -> {
-                Funko responseFunko = gson.fromJson(response.content(),new TypeToken<Funko>(){}.getType());
+                Funko responseFunko = funkoOf(reply);
                 logger.info("🟢 El Funko es: " + responseFunko);
             }
             case ERROR -> logger.error("🔴 Error: " + response.content());
@@ -312,6 +599,65 @@ public class Client {
         }
     }
 
+    /**
+     * Envia varias solicitudes para obtener Funkos por su ID sin esperar a cada respuesta.
+     *
+     * @param token El token de autenticacion del cliente.
+     * @param ids Los IDs de los Funkos que se desean obtener.
+     * @throws ClientException Si se recibe una respuesta inesperada del servidor.
+     * @throws IOException Si ocurre un error de E/S al enviar las solicitudes o recibir las respuestas.
+     */
+    private void sendRequestGetFunkosByIdPipelined(String token, List<String> ids) throws ClientException, IOException {
+        List<Request> requests = ids.stream()
+                .map(id -> new Request(Request.Type.GETBYID, id, token, LocalDateTime.now().toString()))
+                .toList();
+
+        for (Reply reply : sendRequestsPipelined(requests).values()) {
+            Response response = reply.response();
+            switch (response.status()){
+                case OK -> {
+                    Funko responseFunko = funkoOf(reply);
+                    logger.info("🟢 El Funko de la solicitud " + response.requestId() + " es: " + responseFunko);
+                }
+                case ERROR -> logger.error("🔴 Error: " + response.content());
+                default -> throw new ClientException("Unexpected response status: " + response.status());
+            }
+        }
+    }
+
+    /**
+     * Envia varias solicitudes seguidas por la misma conexion sin esperar a cada respuesta, y empareja las respuestas
+     * con sus solicitudes mediante el identificador de correlacion, aunque lleguen desordenadas.
+     *
+     * @param requests Las solicitudes a enviar. Se les asigna un identificador de correlacion nuevo.
+     * @return Las respuestas indexadas por identificador, en el mismo orden en que se enviaron las solicitudes.
+     * @throws IOException Si ocurre un error de E/S o el servidor cierra la conexion antes de responder a todas las solicitudes.
+     */
+    private Map<Long, Reply> sendRequestsPipelined(List<Request> requests) throws IOException {
+        Map<Long, Reply> responses = new LinkedHashMap<>();
+        for (Request request : requests) {
+            Request tagged = new Request(request.type(), request.content(), request.token(), request.createdAt(), ++nextRequestId);
+            logger.debug("Request Send: " + tagged);
+            responses.put(tagged.requestId(), null);
+            writeRequest(tagged);
+        }
+        flushRequests();
+
+        int pending = requests.size();
+        while (pending > 0) {
+            Reply reply = readResponse();
+            Response response = reply.response();
+            logger.debug("Response Received Type: " + response.status() + " for request " + response.requestId());
+            if (response.requestId() == null || !responses.containsKey(response.requestId()) || responses.get(response.requestId()) != null) {
+                logger.warn("Response without pending request: " + response);
+                continue;
+            }
+            responses.put(response.requestId(), reply);
+            pending--;
+        }
+        return responses;
+    }
+
     /**
      * Envía una solicitud al servidor para obtener una lista de Funkos por su modelo.
      *
@@ -324,14 +670,15 @@ public class Client {
         Request request = new Request(Request.Type.GETBYMODEL, model.toUpperCase(), token, LocalDateTime.now().toString());
         logger.debug("Request Send: " + request);
 
-        out.println(gson.toJson(request));
+        sendRequest(request);
 
-        Response response = gson.fromJson(in.readLine(),new TypeToken<Response>(){}.getType());
+        Reply reply = readResponse();
+        Response response = reply.response();
         logger.debug("Response Received Type: " + response.status());
 
         switch (response.status()) {
             case OK -> {
-                List<Funko> responseFunkos = gson.fromJson(response.content(),new TypeToken<List<Funko>>(){}.getType());
+                List<Funko> responseFunkos = funkosOf(reply);
                 logger.info("🟢 Los funkos con Modelo " + model +" son: " + responseFunkos);
             }
             case ERROR -> logger.error("🔴 Error: " + response.content());
@@ -339,6 +686,34 @@ public class Client {
         }
     }
 
+    /**
+     * Envía una solicitud al servidor para obtener una lista de Funkos por su nombre.
+     *
+     * @param token El token de autenticacion del cliente.
+     * @param name El texto que debe contener el nombre, o el principio del nombre seguido de '*'.
+     * @throws ClientException Si se recibe una respuesta inesperada del servidor.
+     * @throws IOException Si ocurre un error de E/S al enviar la solicitud o recibir la respuesta.
+     */
+    private void sendRequestGetFunkosByName(String token, String name) throws ClientException, IOException {
+        Request request = new Request(Request.Type.GETBYNAME, name, token, LocalDateTime.now().toString());
+        logger.debug("Request Send: " + request);
+
+        sendRequest(request);
+
+        Reply reply = readResponse();
+        Response response = reply.response();
+        logger.debug("Response Received Type: " + response.status());
+
+        switch (response.status()) {
+            case OK -> {
+                List<Funko> responseFunkos = funkosOf(reply);
+                logger.info("🟢 Los funkos con nombre " + name +" son: " + responseFunkos);
+            }
+            case ERROR -> logger.error("🔴 Error: " + response.content());
+            default -> throw new ClientException("Unexpected response status: " + response.status());
+        }
+    }
+
     /**
      * Envía una solicitud al servidor para obtener una lista de Funkos por su fecha de lanzamiento.
      *
@@ -351,14 +726,15 @@ public class Client {
         Request request = new Request(Request.Type.GETBYLAUNCHDATE, date, token, LocalDateTime.now().toString());
         logger.debug("Request Send: " + request);
 
-        out.println(gson.toJson(request));
+        sendRequest(request);
 
-        Response response = gson.fromJson(in.readLine(),new TypeToken<Response>(){}.getType());
+        Reply reply = readResponse();
+        Response response = reply.response();
         logger.debug("Response Received Type: " + response.status());
 
         switch (response.status()) {
             case OK -> {
-                List<Funko> responseFunkos = gson.fromJson(response.content(),new TypeToken<List<Funko>>(){}.getType());
+                List<Funko> responseFunkos = funkosOf(reply);
                 logger.info("🟢 Los funkos con fecha de lanzamiento " + date +" son: " + responseFunkos);
             }
             case ERROR -> logger.error("🔴 Error: " + response.content());
@@ -378,14 +754,15 @@ public class Client {
         Request request = new Request(Request.Type.POST, gson.toJson(funko), token, LocalDateTime.now().toString());
         logger.debug("Request Send: " + request);
 
-        out.println(gson.toJson(request));
+        sendRequest(request);
 
-        Response response = gson.fromJson(in.readLine(),new TypeToken<Response>(){}.getType());
+        Reply reply = readResponse();
+        Response response = reply.response();
         logger.debug("Response Received Type: " + response.status());
 
         switch (response.status()) {
             case OK -> {
-                Funko responseFunko = gson.fromJson(response.content(),new TypeToken<Funko>(){}.getType());
+                Funko responseFunko = funkoOf(reply);
                 logger.info("🟢 El Funko fue creado con exito");
                 logger.info(responseFunko.toString());
             }
@@ -394,6 +771,31 @@ public class Client {
         }
     }
 
+    /**
+     * Envia una solicitud al servidor para crear varios Funkos de una vez.
+     *
+     * @param token El token de autenticacion del cliente.
+     * @param funkos Los Funkos que se desean crear.
+     * @throws ClientException Si se recibe una respuesta inesperada del servidor.
+     * @throws IOException Si ocurre un error de E/S al enviar la solicitud o recibir la respuesta.
+     */
+    private void sendRequestBatchPostFunkos(String token, List<Funko> funkos) throws ClientException, IOException {
+        Request request = new Request(Request.Type.BATCH_POST, gson.toJson(funkos), token, LocalDateTime.now().toString());
+        logger.debug("Request Send: " + request);
+
+        sendRequest(request);
+
+        Reply reply = readResponse();
+        Response response = reply.response();
+        logger.debug("Response Received Type: " + response.status());
+
+        switch (response.status()) {
+            case OK -> logger.info("🟢 Se crearon con exito " + response.content() + " funkos");
+            case ERROR -> logger.error("🔴 Error: " + response.content());
+            default -> throw new ClientException("Unexpected response status: " + response.status());
+        }
+    }
+
     /**
      * Envia una solicitud al servidor para actualizar un Funko existente.
      *
@@ -406,14 +808,15 @@ public class Client {
         Request request = new Request(Request.Type.UPDATE, gson.toJson(funko),token,LocalDateTime.now().toString());
         logger.debug("Request Send: " + request);
 
-        out.println(gson.toJson(request));
+        sendRequest(request);
 
-        Response response = gson.fromJson(in.readLine(),new TypeToken<Response>(){}.getType());
+        Reply reply = readResponse();
+        Response response = reply.response();
         logger.debug("Response Received Type: " + response.status());
 
         switch (response.status()) {
             case OK -> {
-                Funko responseFunko = gson.fromJson(response.content(),new TypeToken<Funko>(){}.getType());
+                Funko responseFunko = funkoOf(reply);
                 logger.info("🟢 El Funko fue actualizado con exito");
                 logger.info(responseFunko.toString());
             }
@@ -434,14 +837,15 @@ public class Client {
         Request request = new Request(Request.Type.DELETE,String.valueOf(funko.getId()),token,LocalDateTime.now().toString());
         logger.debug("Request Send: " + request);
 
-        out.println(gson.toJson(request));
+        sendRequest(request);
 
-        Response response = gson.fromJson(in.readLine(),new TypeToken<Response>(){}.getType());
+        Reply reply = readResponse();
+        Response response = reply.response();
         logger.debug("Response Received Type: " + response.status());
 
         switch (response.status()) {
             case OK -> {
-                Funko deleted = gson.fromJson(response.content(),new TypeToken<Funko>(){}.getType());
+                Funko deleted = funkoOf(reply);
                   logger.info("🟢 El Funko fue eliminado con exito: " + deleted);
             }
             case ERROR -> logger.error("🔴 Error: " + response.content());
@@ -466,4 +870,14 @@ public class Client {
     public void setPassword(String password){
         this.password = password;
     }
+
+    /**
+     * Respuesta recibida del servidor junto con los Funkos ya decodificados, si llegaron en binario o dentro del sobre.
+     *
+     * @param response La respuesta.
+     * @param funkos Los Funkos decodificados, o null si van como cadena JSON en el contenido de la respuesta.
+     * @param nextCursor El cursor de la pagina siguiente si la respuesta es una pagina decodificada, o null.
+     */
+    private record Reply(Response response, List<Funko> funkos, Integer nextCursor) {
+    }
 }
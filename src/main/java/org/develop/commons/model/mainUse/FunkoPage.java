@@ -0,0 +1,10 @@
+package org.develop.commons.model.mainUse;
+
+import java.util.List;
+
+/**
+ * Un registro que representa una pagina del catalogo de Funkos ordenado por id.
+ * nextCursor es el id que hay que enviar como cursor para pedir la pagina siguiente, o null si no hay mas.
+ */
+public record FunkoPage(List<Funko> funkos, Integer nextCursor) {
+}
@@ -1,22 +1,47 @@
 package org.develop.commons.model.mainUse;
 
-import java.util.concurrent.locks.Lock;
-import java.util.concurrent.locks.ReentrantLock;
+import reactor.core.publisher.Mono;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * Clase que proporciona la funcionalidad de generacion de identificadores unicos.
- * Esta clase garantiza que los identificadores generados sean unicos incluso en entornos
- * multi-hilo gracias al uso de un mecanismo de bloqueo.
+ * Los identificadores se reparten por bloques (hi/lo): se reserva un bloque de identificadores consecutivos en el
+ * origen de bloques y se van entregando con un contador atomico, sin bloqueos, hasta agotarlo. Solo al agotarse
+ * un bloque se reserva el siguiente, una unica vez aunque lo pidan varios hilos a la vez.
+ * Mientras no se indique otro origen, los bloques se reservan en memoria.
  */
 public class MyIDGenerator {
 
-    private static MyIDGenerator instance;
-    private static long id = 0;
+    /**
+     * Origen del que se reservan los bloques de identificadores.
+     */
+    @FunctionalInterface
+    public interface BlockSource {
+        /**
+         * Reserva un bloque de identificadores consecutivos que no se hayan entregado antes.
+         *
+         * @param size El numero de identificadores del bloque.
+         * @return Un mono (Mono) con el primer identificador del bloque.
+         */
+        Mono<Long> reserve(int size);
+    }
 
-    private static final Lock locker = new ReentrantLock(true);
+    private static final int BLOCK_SIZE = 100;
 
-    private MyIDGenerator(){}
+    private static MyIDGenerator instance;
 
+    private final int blockSize;
+    private final AtomicLong next = new AtomicLong();
+    private final AtomicReference<Refill> refill = new AtomicReference<>();
+    private volatile long blockEnd;
+    private volatile BlockSource blockSource;
+
+    MyIDGenerator(BlockSource blockSource, int blockSize){
+        this.blockSource = blockSource;
+        this.blockSize = blockSize;
+    }
 
     /**
      * Obtiene una instancia unica de la clase MyIDGenerator. Si la instancia aun no ha sido creada,
@@ -26,20 +51,72 @@ public class MyIDGenerator {
      */
     public static MyIDGenerator getInstance(){
         if (instance == null){
-            instance = new MyIDGenerator();
+            AtomicLong memory = new AtomicLong(1);
+            instance = new MyIDGenerator(size -> Mono.just(memory.getAndAdd(size)), BLOCK_SIZE);
         }
         return instance;
     }
 
     /**
-     * Genera un identificador unico y lo incrementa en uno.
+     * Cambia el origen del que se reservan los bloques. Los identificadores que queden del bloque actual se descartan.
+     *
+     * @param blockSource El nuevo origen de bloques.
+     */
+    public void useBlockSource(BlockSource blockSource){
+        this.blockSource = blockSource;
+        this.refill.set(null);
+        this.blockEnd = next.get();
+    }
+
+    /**
+     * Genera un identificador unico.
+     *
+     * @return Un mono (Mono) con el identificador generado.
+     */
+    public Mono<Long> nextId(){
+        return Mono.defer(() -> {
+            long end = blockEnd;
+            long id = next.getAndIncrement();
+            if (id < end){
+                return Mono.just(id);
+            }
+            return refill(end).then(nextId());
+        });
+    }
+
+    /**
+     * Reserva un nuevo bloque cuando se agota el que termina en el limite indicado. Si otro hilo ya lo esta
+     * reservando, espera a esa misma reserva; si ya se ha reservado, termina sin hacer nada.
+     *
+     * @param exhaustedEnd El limite del bloque agotado.
+     * @return Un mono (Mono) que se completa cuando hay un bloque nuevo.
+     */
+    private Mono<Void> refill(long exhaustedEnd){
+        if (blockEnd != exhaustedEnd){
+            return Mono.empty();
+        }
+        Refill current = refill.get();
+        if (current != null && current.end() == exhaustedEnd){
+            return current.block();
+        }
+        Mono<Void> block = blockSource.reserve(blockSize)
+                .doOnNext(start -> {
+                    next.set(start);
+                    blockEnd = start + blockSize;
+                })
+                .doOnError(error -> refill.set(null))
+                .then()
+                .cache();
+        Refill created = new Refill(exhaustedEnd, block);
+        return refill.compareAndSet(current, created) ? block : refill(exhaustedEnd);
+    }
+
+    /**
+     * Reserva de un bloque en curso o terminada.
      *
-     * @return El identificador unico generado.
+     * @param end El limite del bloque agotado que la provoco.
+     * @param block La reserva.
      */
-    public Long getIDandIncrement(){
-        locker.lock();
-        id++;
-        locker.unlock();
-        return id;
+    private record Refill(long end, Mono<Void> block) {
     }
 }
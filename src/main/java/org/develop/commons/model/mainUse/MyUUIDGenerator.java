@@ -0,0 +1,49 @@
+package org.develop.commons.model.mainUse;
+
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Clase que genera UUID de version 7 (RFC 9562), ordenados por el momento en que se generan.
+ * Los 48 bits mas altos son la marca de tiempo en milisegundos y los 12 siguientes un contador dentro del mismo
+ * milisegundo, de forma que los UUID generados por esta instancia son siempre crecientes. El resto es aleatorio.
+ * Al ser crecientes, las inserciones en un indice sobre el uuid se hacen siempre al final del indice en lugar de
+ * repartirse por todas sus paginas, como ocurre con UUID.randomUUID().
+ */
+public class MyUUIDGenerator {
+
+    private static MyUUIDGenerator instance;
+
+    private final AtomicLong lastTimestampAndCounter = new AtomicLong();
+
+    private MyUUIDGenerator(){
+    }
+
+    /**
+     * Obtiene una instancia unica de la clase MyUUIDGenerator. Si la instancia aun no ha sido creada,
+     * se crea una nueva y se devuelve.
+     *
+     * @return Una instancia de MyUUIDGenerator.
+     */
+    public static synchronized MyUUIDGenerator getInstance(){
+        if (instance == null){
+            instance = new MyUUIDGenerator();
+        }
+        return instance;
+    }
+
+    /**
+     * Genera un UUID de version 7. Si en el mismo milisegundo se generan mas de 4096, el contador desborda sobre
+     * la marca de tiempo, que se adelanta ligeramente al reloj, y el orden se mantiene.
+     *
+     * @return El UUID generado.
+     */
+    public UUID generate(){
+        long candidate = System.currentTimeMillis() << 12;
+        long timestampAndCounter = lastTimestampAndCounter.updateAndGet(last -> candidate > last ? candidate : last + 1);
+        long mostSigBits = ((timestampAndCounter >>> 12) << 16) | 0x7000L | (timestampAndCounter & 0xFFFL);
+        long leastSigBits = (ThreadLocalRandom.current().nextLong() & 0x3FFFFFFFFFFFFFFFL) | 0x8000000000000000L;
+        return new UUID(mostSigBits, leastSigBits);
+    }
+}
@@ -0,0 +1,8 @@
+package org.develop.commons.model.serverUse;
+
+/**
+ * Un registro que representa el contenido de una solicitud GETPAGE.
+ * Contiene el cursor (se devuelven los Funkos con id mayor que afterId) y el tamano de pagina.
+ */
+public record PageRequest(Integer afterId, Integer size) {
+}
@@ -3,13 +3,31 @@ package org.develop.commons.model.serverUse;
 /**
  * Un registro que representa una solicitud enviada al servidor.
  * Contiene informacion sobre el tipo de solicitud, su contenido, un token de autenticacion y la marca de tiempo de creacion.
+ * El identificador de solicitud es opcional; si se indica, el servidor lo devuelve en la respuesta para que el cliente
+ * pueda tener varias solicitudes en curso en la misma conexion y emparejar las respuestas aunque lleguen desordenadas.
  */
-public record Request(Type type, String content, String token, String createdAt) {
+public record Request(Type type, String content, String token, String createdAt, Long requestId) {
+
+    /**
+     * Crea una solicitud sin identificador de correlacion.
+     *
+     * @param type El tipo de solicitud.
+     * @param content El contenido de la solicitud.
+     * @param token El token de autenticacion.
+     * @param createdAt La marca de tiempo de creacion.
+     */
+    public Request(Type type, String content, String token, String createdAt) {
+        this(type, content, token, createdAt, null);
+    }
 
     /**
      * Enumeracion que define los tipos de solicitud compatibles.
+     * GETALL_STREAM devuelve el catalogo en fragmentos CHUNK terminados por una respuesta END.
+     * BATCH_POST recibe una lista de Funkos en JSON, los guarda en lotes y devuelve el numero de Funkos guardados.
+     * GETPAGE recibe un PageRequest en JSON y devuelve una FunkoPage con el cursor de la pagina siguiente.
+     * GETBYNAME recibe un texto y devuelve los Funkos cuyo nombre lo contiene, o los que empiezan por el si termina en '*'.
      */
         public enum Type {
-        LOGIN, SALIR, OTRO, GETALL, GETBYID, GETBYMODEL, GETBYLAUNCHDATE,POST, UPDATE, DELETE
+        LOGIN, SALIR, OTRO, GETALL, GETBYID, GETBYMODEL, GETBYLAUNCHDATE,POST, UPDATE, DELETE, GETALL_STREAM, GETPAGE, BATCH_POST, GETBYNAME
     }
 }
@@ -3,12 +3,26 @@ package org.develop.commons.model.serverUse;
 /**
  * Un registro que representa una respuesta del servidor en la aplicacion.
  * Contiene informacion sobre el estado de la respuesta, su contenido y la marca de tiempo de creacion.
+ * Si la solicitud llevaba identificador, la respuesta lo repite en requestId.
  */
-public record Response(Status status, String content, String createdAt) {
+public record Response(Status status, String content, String createdAt, Long requestId) {
+
+    /**
+     * Crea una respuesta sin identificador de correlacion.
+     *
+     * @param status El estado de la respuesta.
+     * @param content El contenido de la respuesta.
+     * @param createdAt La marca de tiempo de creacion.
+     */
+    public Response(Status status, String content, String createdAt) {
+        this(status, content, createdAt, null);
+    }
+
     /**
      * Enumeracion que define los estados de respuesta admitidos.
+     * CHUNK es un fragmento de una respuesta en streaming y END la marca su final, con el total de elementos en content.
      */
     public enum Status {
-        OK, ERROR, BYE, TOKEN
+        OK, ERROR, BYE, TOKEN, CHUNK, END
     }
 }
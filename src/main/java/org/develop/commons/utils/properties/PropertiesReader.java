@@ -47,4 +47,15 @@ public class PropertiesReader {
             throw new FileNotFoundException("No se encuentra la propiedad " + key + " en el fichero " + fileName);
         }
     }
+
+    /**
+     * Obtiene el valor de una propiedad opcional a partir de su clave.
+     *
+     * @param key La clave de la propiedad que se desea obtener.
+     * @param defaultValue El valor que se devuelve si la clave no se encuentra en el archivo de propiedades.
+     * @return El valor de la propiedad correspondiente a la clave, o el valor por defecto.
+     */
+    public String getProperty(String key, String defaultValue) {
+        return properties.getProperty(key, defaultValue);
+    }
 }
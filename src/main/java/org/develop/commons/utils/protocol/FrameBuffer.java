@@ -0,0 +1,35 @@
+package org.develop.commons.utils.protocol;
+
+import java.io.ByteArrayOutputStream;
+import java.net.ProtocolException;
+import java.nio.ByteBuffer;
+
+/**
+ * Buffer en el que se escribe la carga de una trama. Reserva el hueco de la cabecera al principio y la rellena
+ * al terminar, de forma que la trama completa se obtiene sin copiar la carga.
+ */
+public class FrameBuffer extends ByteArrayOutputStream {
+
+    /**
+     * Crea un buffer vacio con el hueco de la cabecera reservado.
+     */
+    public FrameBuffer() {
+        super(256);
+        count = FrameProtocol.HEADER_SIZE;
+    }
+
+    /**
+     * Rellena la cabecera y devuelve la trama completa. El buffer no debe seguir usandose despues.
+     *
+     * @param type El tipo de trama.
+     * @return La trama, preparada para lectura.
+     * @throws ProtocolException Si la carga supera {@link FrameProtocol#MAX_FRAME_LENGTH}.
+     */
+    public ByteBuffer toFrame(byte type) throws ProtocolException {
+        int length = count - FrameProtocol.HEADER_SIZE;
+        FrameProtocol.checkLength(length);
+        return ByteBuffer.wrap(buf, 0, count)
+                .putInt(0, length)
+                .put(4, type);
+    }
+}
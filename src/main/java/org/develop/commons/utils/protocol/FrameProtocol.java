@@ -0,0 +1,124 @@
+package org.develop.commons.utils.protocol;
+
+import com.google.gson.Gson;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.net.ProtocolException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Constantes y utilidades del protocolo de tramas entre cliente y servidor.
+ * <p>
+ * Por defecto cada mensaje es una linea JSON. Un cliente puede negociar el modo de tramas enviando como primeros
+ * bytes de la conexion {@link #MAGIC} y un byte de opciones; el servidor contesta con {@link #MAGIC} y las opciones
+ * que acepta. A partir de ahi cada mensaje es una trama {@code [int longitud][byte tipo][carga]}, donde la longitud
+ * es la de la carga. Una linea JSON siempre empieza por '{', asi que el primer byte basta para distinguir ambos modos.
+ */
+public final class FrameProtocol {
+    /** Primer byte de la negociacion del modo de tramas. */
+    public static final byte MAGIC = (byte) 0xF5;
+    /** Tamano de la cabecera de una trama: longitud (4 bytes) y tipo (1 byte). */
+    public static final int HEADER_SIZE = 5;
+    /** Longitud maxima admitida para la carga de una trama. */
+    public static final int MAX_FRAME_LENGTH = 64 * 1024 * 1024;
+    /** Tipo de trama de una solicitud del cliente. */
+    public static final byte REQUEST = 1;
+    /** Tipo de trama de una respuesta del servidor. */
+    public static final byte RESPONSE = 2;
+    /** Tipo de trama de una respuesta OK con un Funko codificado con {@link FunkoCodec}. */
+    public static final byte FUNKO = 3;
+    /** Tipo de trama de una respuesta OK con una lista de Funkos codificada con {@link FunkoCodec}. */
+    public static final byte FUNKO_LIST = 4;
+    /** Tipo de trama de un fragmento CHUNK de una respuesta en streaming con Funkos codificados con {@link FunkoCodec}. */
+    public static final byte FUNKO_CHUNK = 5;
+    /** Tipo de trama de una respuesta OK con una pagina de Funkos y su cursor, codificada con {@link FunkoCodec}. */
+    public static final byte FUNKO_PAGE = 6;
+    /** Opcion para recibir los Funkos en binario en lugar de en JSON. */
+    public static final int FLAG_BINARY_FUNKOS = 1;
+    /**
+     * Opcion para recibir los Funkos como JSON dentro del propio sobre de la respuesta, en el campo
+     * {@link #FUNKO_FIELD} o {@link #FUNKOS_FIELD}, en lugar de como una cadena JSON escapada en content.
+     */
+    public static final int FLAG_INLINE_JSON = 1 << 1;
+    /** Campo del sobre JSON con un Funko cuando se usa {@link #FLAG_INLINE_JSON}. */
+    public static final String FUNKO_FIELD = "funko";
+    /** Campo del sobre JSON con una lista de Funkos cuando se usa {@link #FLAG_INLINE_JSON}. */
+    public static final String FUNKOS_FIELD = "funkos";
+    /** Campo del sobre JSON con el cursor de la pagina siguiente cuando se usa {@link #FLAG_INLINE_JSON}. */
+    public static final String NEXT_CURSOR_FIELD = "nextCursor";
+    /** Opciones del modo de tramas que entiende esta version. */
+    public static final int SUPPORTED_FLAGS = FLAG_BINARY_FUNKOS | FLAG_INLINE_JSON;
+
+    private FrameProtocol() {
+    }
+
+    /**
+     * Escribe el saludo de negociacion: {@link #MAGIC} seguido del byte de opciones.
+     *
+     * @param out El flujo de salida.
+     * @param flags Las opciones solicitadas o aceptadas.
+     * @throws IOException Si ocurre un error al escribir.
+     */
+    public static void writeHello(OutputStream out, int flags) throws IOException {
+        out.write(MAGIC);
+        out.write(flags);
+    }
+
+    /**
+     * Lee el saludo de negociacion y devuelve el byte de opciones.
+     *
+     * @param in El flujo de entrada.
+     * @return Las opciones indicadas por el otro extremo.
+     * @throws IOException Si la conexion se cierra o el saludo no es valido.
+     */
+    public static int readHello(InputStream in) throws IOException {
+        int magic = in.read();
+        int flags = in.read();
+        if (magic < 0 || flags < 0) {
+            throw new EOFException("Connection closed during protocol negotiation");
+        }
+        if ((byte) magic != MAGIC) {
+            throw new ProtocolException("Framed protocol not supported by peer");
+        }
+        return flags;
+    }
+
+    /**
+     * Comprueba que la longitud de una trama es valida.
+     *
+     * @param length La longitud de la carga.
+     * @throws ProtocolException Si la longitud es negativa o supera {@link #MAX_FRAME_LENGTH}.
+     */
+    public static void checkLength(int length) throws ProtocolException {
+        if (length < 0 || length > MAX_FRAME_LENGTH) {
+            throw new ProtocolException("Invalid frame length: " + length);
+        }
+    }
+
+    /**
+     * Serializa un mensaje a JSON y lo devuelve como una trama completa lista para escribir.
+     *
+     * @param type El tipo de trama.
+     * @param gson El Gson con el que se serializa el mensaje.
+     * @param message El mensaje.
+     * @return Un buffer con la cabecera y la carga, preparado para lectura.
+     */
+    public static ByteBuffer encodeJson(byte type, Gson gson, Object message) {
+        try {
+            FrameBuffer frame = new FrameBuffer();
+            Writer writer = new OutputStreamWriter(frame, StandardCharsets.UTF_8);
+            gson.toJson(message, writer);
+            writer.flush();
+            return frame.toFrame(type);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package org.develop.commons.utils.protocol;
+
+import com.google.gson.Gson;
+
+import java.io.ByteArrayInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Lee tramas de un flujo de entrada en un buffer reutilizable, que solo crece cuando llega una trama mayor.
+ * No es seguro para hilos.
+ */
+public class FrameReader {
+    private static final int INITIAL_CAPACITY = 8 * 1024;
+
+    private final InputStream in;
+    private ByteBuffer payload = ByteBuffer.allocate(INITIAL_CAPACITY);
+    private byte type;
+
+    /**
+     * Constructor de la clase FrameReader.
+     *
+     * @param in El flujo de entrada, preferiblemente con buffer.
+     */
+    public FrameReader(InputStream in) {
+        this.in = in;
+    }
+
+    /**
+     * Lee la siguiente trama completa.
+     *
+     * @return true si se ha leido una trama, false si la conexion se ha cerrado limpiamente antes de empezarla.
+     * @throws IOException Si ocurre un error al leer, la conexion se cierra a mitad de trama o la longitud no es valida.
+     */
+    public boolean next() throws IOException {
+        int first = in.read();
+        if (first < 0) {
+            return false;
+        }
+        int length = (first << 24) | (readByte() << 16) | (readByte() << 8) | readByte();
+        FrameProtocol.checkLength(length);
+        type = (byte) readByte();
+
+        if (payload.capacity() < length) {
+            payload = ByteBuffer.allocate(Math.max(length, payload.capacity() * 2));
+        }
+        if (in.readNBytes(payload.array(), 0, length) < length) {
+            throw new EOFException("Connection closed in the middle of a frame");
+        }
+        payload.clear().limit(length);
+        return true;
+    }
+
+    /**
+     * Devuelve el tipo de la ultima trama leida.
+     *
+     * @return El tipo de trama.
+     */
+    public byte type() {
+        return type;
+    }
+
+    /**
+     * Devuelve la carga de la ultima trama leida. El buffer se reutiliza en la siguiente llamada a {@link #next()}.
+     *
+     * @return La carga, preparada para lectura.
+     */
+    public ByteBuffer payload() {
+        return payload;
+    }
+
+    /**
+     * Deserializa la carga JSON de la ultima trama leida, sin crear un String intermedio.
+     *
+     * @param gson El Gson con el que se deserializa la carga.
+     * @param classOfT La clase del mensaje.
+     * @param <T> El tipo del mensaje.
+     * @return El mensaje deserializado.
+     */
+    public <T> T readJson(Gson gson, Class<T> classOfT) {
+        return gson.fromJson(reader(), classOfT);
+    }
+
+    /**
+     * Devuelve un lector de texto sobre la carga de la ultima trama leida, para deserializarla en streaming.
+     *
+     * @return El lector de la carga en UTF-8.
+     */
+    public Reader reader() {
+        return new InputStreamReader(new ByteArrayInputStream(payload.array(), 0, payload.limit()), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Lee un byte obligatorio de la trama.
+     *
+     * @return El byte leido, sin signo.
+     * @throws IOException Si la conexion se cierra a mitad de trama.
+     */
+    private int readByte() throws IOException {
+        int b = in.read();
+        if (b < 0) {
+            throw new EOFException("Connection closed in the middle of a frame");
+        }
+        return b;
+    }
+}
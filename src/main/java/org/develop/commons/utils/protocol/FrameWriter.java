@@ -0,0 +1,89 @@
+package org.develop.commons.utils.protocol;
+
+import com.google.gson.Gson;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Escribe tramas en un flujo de salida. El JSON se serializa directamente en un buffer reutilizable,
+ * sin pasar por un String intermedio. No es seguro para hilos: cada conexion debe serializar sus escrituras.
+ */
+public class FrameWriter {
+    private final OutputStream out;
+    private final PayloadBuffer payload = new PayloadBuffer();
+    private final Writer payloadWriter = new OutputStreamWriter(payload, StandardCharsets.UTF_8);
+
+    /**
+     * Constructor de la clase FrameWriter.
+     *
+     * @param out El flujo de salida, preferiblemente con buffer para que varias tramas viajen en una sola escritura.
+     */
+    public FrameWriter(OutputStream out) {
+        this.out = out;
+    }
+
+    /**
+     * Serializa un mensaje a JSON y lo escribe como una trama.
+     *
+     * @param type El tipo de trama.
+     * @param gson El Gson con el que se serializa el mensaje.
+     * @param message El mensaje.
+     * @throws IOException Si ocurre un error al escribir.
+     */
+    public void writeJson(byte type, Gson gson, Object message) throws IOException {
+        payload.reset();
+        gson.toJson(message, payloadWriter);
+        payloadWriter.flush();
+        writeFrame(type, payload.array(), payload.size());
+    }
+
+    /**
+     * Escribe una trama con la carga indicada.
+     *
+     * @param type El tipo de trama.
+     * @param data El array que contiene la carga.
+     * @param length La longitud de la carga.
+     * @throws IOException Si ocurre un error al escribir o la longitud no es valida.
+     */
+    public void writeFrame(byte type, byte[] data, int length) throws IOException {
+        FrameProtocol.checkLength(length);
+        out.write(length >>> 24);
+        out.write(length >>> 16);
+        out.write(length >>> 8);
+        out.write(length);
+        out.write(type);
+        out.write(data, 0, length);
+    }
+
+    /**
+     * Envia las tramas pendientes.
+     *
+     * @throws IOException Si ocurre un error al escribir.
+     */
+    public void flush() throws IOException {
+        out.flush();
+    }
+
+    /**
+     * Cierra el flujo de salida.
+     *
+     * @throws IOException Si ocurre un error al cerrar.
+     */
+    public void close() throws IOException {
+        out.close();
+    }
+
+    /**
+     * ByteArrayOutputStream que expone su array interno para evitar copias.
+     */
+    private static class PayloadBuffer extends ByteArrayOutputStream {
+        byte[] array() {
+            return buf;
+        }
+    }
+}
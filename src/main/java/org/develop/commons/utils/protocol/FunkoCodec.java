@@ -0,0 +1,275 @@
+package org.develop.commons.utils.protocol;
+
+import org.develop.commons.model.mainUse.Funko;
+import org.develop.commons.model.mainUse.FunkoPage;
+import org.develop.commons.model.mainUse.Modelo;
+
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.ProtocolException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Codificacion binaria compacta de Funkos, sin reflexion. El UUID viaja como dos long, el modelo como su ordinal,
+ * el precio como double y las fechas como numeros desde la epoca. Un byte inicial indica que campos opcionales
+ * estan presentes.
+ * <p>
+ * Las respuestas binarias son tramas {@link FrameProtocol#FUNKO} o {@link FrameProtocol#FUNKO_LIST} cuya carga es
+ * el identificador de la solicitud, opcional, seguido del Funko o de la lista de Funkos.
+ */
+public final class FunkoCodec {
+    private static final int HAS_UUID = 1;
+    private static final int HAS_NAME = 1 << 1;
+    private static final int HAS_MODELO = 1 << 2;
+    private static final int HAS_FECHA_LANZAMIENTO = 1 << 3;
+    private static final int HAS_CREATED_AT = 1 << 4;
+    private static final int HAS_UPDATED_AT = 1 << 5;
+    private static final Modelo[] MODELOS = Modelo.values();
+    /**
+     * Bytes minimos de un Funko codificado, sin campos opcionales: el byte de presencia, myId, id y precio.
+     */
+    private static final int MIN_FUNKO_BYTES = 1 + 8 + 4 + 8;
+
+    private FunkoCodec() {
+    }
+
+    /**
+     * Escribe un Funko en formato binario.
+     *
+     * @param out El destino.
+     * @param funko El Funko a escribir.
+     * @throws IOException Si ocurre un error al escribir.
+     */
+    public static void writeFunko(DataOutput out, Funko funko) throws IOException {
+        int present = (funko.getUuid() != null ? HAS_UUID : 0)
+                | (funko.getName() != null ? HAS_NAME : 0)
+                | (funko.getModelo() != null ? HAS_MODELO : 0)
+                | (funko.getFecha_lanzamiento() != null ? HAS_FECHA_LANZAMIENTO : 0)
+                | (funko.getCreated_at() != null ? HAS_CREATED_AT : 0)
+                | (funko.getUpdated_at() != null ? HAS_UPDATED_AT : 0);
+        out.writeByte(present);
+        out.writeLong(funko.getMyId());
+        out.writeInt(funko.getId());
+        if (funko.getUuid() != null) {
+            out.writeLong(funko.getUuid().getMostSignificantBits());
+            out.writeLong(funko.getUuid().getLeastSignificantBits());
+        }
+        if (funko.getName() != null) {
+            byte[] name = funko.getName().getBytes(StandardCharsets.UTF_8);
+            out.writeInt(name.length);
+            out.write(name);
+        }
+        if (funko.getModelo() != null) {
+            out.writeByte(funko.getModelo().ordinal());
+        }
+        out.writeDouble(funko.getPrecio());
+        if (funko.getFecha_lanzamiento() != null) {
+            out.writeLong(funko.getFecha_lanzamiento().toEpochDay());
+        }
+        if (funko.getCreated_at() != null) {
+            writeDateTime(out, funko.getCreated_at());
+        }
+        if (funko.getUpdated_at() != null) {
+            writeDateTime(out, funko.getUpdated_at());
+        }
+    }
+
+    /**
+     * Lee un Funko en formato binario. La longitud del nombre se comprueba contra los bytes que quedan por leer,
+     * asi que una longitud negativa o mayor que la carga se rechaza sin reservar memoria.
+     *
+     * @param in El origen, sobre la carga de una trama.
+     * @return El Funko leido.
+     * @throws IOException Si ocurre un error al leer o los datos no son validos.
+     */
+    public static Funko readFunko(DataInputStream in) throws IOException {
+        int present = in.readUnsignedByte();
+        Funko.FunkoBuilder builder = Funko.builder()
+                .myId(in.readLong())
+                .id(in.readInt());
+        if ((present & HAS_UUID) != 0) {
+            builder.uuid(new UUID(in.readLong(), in.readLong()));
+        }
+        if ((present & HAS_NAME) != 0) {
+            int length = in.readInt();
+            if (length < 0 || length > in.available()) {
+                throw new ProtocolException("Invalid name length: " + length);
+            }
+            byte[] name = new byte[length];
+            in.readFully(name);
+            builder.name(new String(name, StandardCharsets.UTF_8));
+        }
+        if ((present & HAS_MODELO) != 0) {
+            int ordinal = in.readUnsignedByte();
+            if (ordinal >= MODELOS.length) {
+                throw new ProtocolException("Unknown modelo ordinal: " + ordinal);
+            }
+            builder.modelo(MODELOS[ordinal]);
+        }
+        builder.precio(in.readDouble());
+        if ((present & HAS_FECHA_LANZAMIENTO) != 0) {
+            builder.fecha_lanzamiento(LocalDate.ofEpochDay(in.readLong()));
+        }
+        builder.created_at((present & HAS_CREATED_AT) != 0 ? readDateTime(in) : null);
+        builder.updated_at((present & HAS_UPDATED_AT) != 0 ? readDateTime(in) : null);
+        return builder.build();
+    }
+
+    /**
+     * Escribe una lista de Funkos en formato binario, precedida por su tamano.
+     *
+     * @param out El destino.
+     * @param funkos Los Funkos a escribir.
+     * @throws IOException Si ocurre un error al escribir.
+     */
+    public static void writeFunkos(DataOutput out, List<Funko> funkos) throws IOException {
+        out.writeInt(funkos.size());
+        for (Funko funko : funkos) {
+            writeFunko(out, funko);
+        }
+    }
+
+    /**
+     * Lee una lista de Funkos en formato binario. El tamano se comprueba contra los bytes que quedan por leer: cada
+     * Funko ocupa al menos MIN_FUNKO_BYTES, asi que un tamano negativo o que no cabe en la carga se rechaza.
+     *
+     * @param in El origen, sobre la carga de una trama.
+     * @return Los Funkos leidos.
+     * @throws IOException Si ocurre un error al leer o los datos no son validos.
+     */
+    public static List<Funko> readFunkos(DataInputStream in) throws IOException {
+        int size = in.readInt();
+        if (size < 0 || size > in.available() / MIN_FUNKO_BYTES) {
+            throw new ProtocolException("Invalid list size: " + size);
+        }
+        List<Funko> funkos = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            funkos.add(readFunko(in));
+        }
+        return funkos;
+    }
+
+    /**
+     * Crea una trama de respuesta con un Funko en binario.
+     *
+     * @param requestId El identificador de la solicitud, o null si no tiene.
+     * @param funko El Funko.
+     * @return La trama completa, preparada para lectura.
+     */
+    public static ByteBuffer encodeFunkoFrame(Long requestId, Funko funko) {
+        try {
+            FrameBuffer frame = new FrameBuffer();
+            DataOutputStream out = new DataOutputStream(frame);
+            writeRequestId(out, requestId);
+            writeFunko(out, funko);
+            return frame.toFrame(FrameProtocol.FUNKO);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Crea una trama de respuesta con una lista de Funkos en binario.
+     *
+     * @param requestId El identificador de la solicitud, o null si no tiene.
+     * @param funkos Los Funkos.
+     * @return La trama completa, preparada para lectura.
+     */
+    public static ByteBuffer encodeFunkoListFrame(Long requestId, List<Funko> funkos) {
+        return encodeFunkoListFrame(FrameProtocol.FUNKO_LIST, requestId, funkos);
+    }
+
+    /**
+     * Crea una trama con una lista de Funkos en binario del tipo indicado.
+     *
+     * @param type El tipo de trama: {@link FrameProtocol#FUNKO_LIST} o {@link FrameProtocol#FUNKO_CHUNK}.
+     * @param requestId El identificador de la solicitud, o null si no tiene.
+     * @param funkos Los Funkos.
+     * @return La trama completa, preparada para lectura.
+     */
+    public static ByteBuffer encodeFunkoListFrame(byte type, Long requestId, List<Funko> funkos) {
+        try {
+            FrameBuffer frame = new FrameBuffer();
+            DataOutputStream out = new DataOutputStream(frame);
+            writeRequestId(out, requestId);
+            writeFunkos(out, funkos);
+            return frame.toFrame(type);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Crea una trama de respuesta con una pagina de Funkos en binario: el cursor de la pagina siguiente,
+     * opcional, seguido de la lista de Funkos.
+     *
+     * @param requestId El identificador de la solicitud, o null si no tiene.
+     * @param page La pagina.
+     * @return La trama completa, preparada para lectura.
+     */
+    public static ByteBuffer encodeFunkoPageFrame(Long requestId, FunkoPage page) {
+        try {
+            FrameBuffer frame = new FrameBuffer();
+            DataOutputStream out = new DataOutputStream(frame);
+            writeRequestId(out, requestId);
+            out.writeBoolean(page.nextCursor() != null);
+            if (page.nextCursor() != null) {
+                out.writeInt(page.nextCursor());
+            }
+            writeFunkos(out, page.funkos());
+            return frame.toFrame(FrameProtocol.FUNKO_PAGE);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Lee una pagina de Funkos en binario, despues del identificador de solicitud.
+     *
+     * @param in El origen, sobre la carga de una trama.
+     * @return La pagina leida.
+     * @throws IOException Si ocurre un error al leer o los datos no son validos.
+     */
+    public static FunkoPage readFunkoPage(DataInputStream in) throws IOException {
+        Integer nextCursor = in.readBoolean() ? in.readInt() : null;
+        return new FunkoPage(readFunkos(in), nextCursor);
+    }
+
+    /**
+     * Lee el identificador de solicitud con el que empieza la carga de una respuesta binaria.
+     *
+     * @param in El origen.
+     * @return El identificador, o null si la solicitud no tenia.
+     * @throws IOException Si ocurre un error al leer.
+     */
+    public static Long readRequestId(DataInput in) throws IOException {
+        return in.readBoolean() ? in.readLong() : null;
+    }
+
+    private static void writeRequestId(DataOutput out, Long requestId) throws IOException {
+        out.writeBoolean(requestId != null);
+        if (requestId != null) {
+            out.writeLong(requestId);
+        }
+    }
+
+    private static void writeDateTime(DataOutput out, LocalDateTime dateTime) throws IOException {
+        out.writeLong(dateTime.toEpochSecond(ZoneOffset.UTC));
+        out.writeInt(dateTime.getNano());
+    }
+
+    private static LocalDateTime readDateTime(DataInput in) throws IOException {
+        return LocalDateTime.ofEpochSecond(in.readLong(), in.readInt(), ZoneOffset.UTC);
+    }
+}
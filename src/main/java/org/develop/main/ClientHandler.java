@@ -2,367 +2,228 @@ package org.develop.main;
 
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
-import com.google.gson.reflect.TypeToken;
+import com.google.gson.JsonParseException;
 import org.develop.commons.model.mainUse.Funko;
-import org.develop.commons.model.mainUse.Modelo;
-import org.develop.commons.model.serverUse.Login;
+import org.develop.commons.model.mainUse.FunkoPage;
 import org.develop.commons.model.serverUse.Request;
 import org.develop.commons.model.serverUse.Response;
-import org.develop.commons.model.serverUse.User;
 import org.develop.commons.utils.adapters.LocalDateAdapter;
 import org.develop.commons.utils.adapters.LocalDateTimeAdapter;
+import org.develop.commons.utils.protocol.FrameProtocol;
+import org.develop.commons.utils.protocol.FrameReader;
 import org.develop.exceptions.server.ServerException;
-import org.develop.repositories.users.UserRepository;
-import org.develop.services.funkos.FunkoService;
-import org.develop.services.token.TokenService;
-import org.mindrot.jbcrypt.BCrypt;
+import org.reactivestreams.Subscription;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.BufferedInputStream;
 import java.io.BufferedReader;
+import java.io.EOFException;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.InputStreamReader;
-import java.io.PrintWriter;
+import java.io.OutputStream;
 import java.net.Socket;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
-import java.util.Optional;
+import java.util.List;
+import java.util.function.Supplier;
 
 /**
- * Clase que maneja la comunicacion con un cliente en un hilo separado.
+ * Clase que maneja la comunicacion con un cliente. Se ejecuta como tarea en el ejecutor de conexiones del servidor,
+ * que puede usar hilos de plataforma o hilos virtuales.
  */
-public class ClientHandler extends Thread{
+public class ClientHandler implements Runnable, ResponseChannel{
     private final Logger logger = LoggerFactory.getLogger(ClientHandler.class);
     private final Socket clientSocket;
     private final Gson gson = new GsonBuilder()
             .registerTypeAdapter(LocalDate.class, new LocalDateAdapter())
             .registerTypeAdapter(LocalDateTime.class, new LocalDateTimeAdapter()).create();
     private final long clientNumber;
-    private final FunkoService funkoService;
+    private final RequestProcessor requestProcessor;
 
     BufferedReader in;
-    PrintWriter out;
+    FrameReader frameIn;
+    ResponseWriter out;
+    ResponseEncoder encoder;
 
     /**
      * Constructor de la clase ClientHandler.
      *
      * @param socket El socket de cliente con el que se comunica este manejador.
-     * @param clientNumber Un identificador único para el cliente manejado por este hilo.
-     * @param funkoService El servicio FunkoService utilizado para realizar operaciones relacionadas con Funkos.
+     * @param clientNumber Un identificador único para el cliente manejado.
+     * @param requestProcessor El procesador de solicitudes compartido por todos los clientes.
      */
-    public ClientHandler(Socket socket, long clientNumber, FunkoService funkoService) {
+    public ClientHandler(Socket socket, long clientNumber, RequestProcessor requestProcessor) {
         this.clientSocket = socket;
         this.clientNumber = clientNumber;
-        this.funkoService = funkoService;
+        this.requestProcessor = requestProcessor;
     }
 
     /**
-     * Ejecuta el hilo del manejador de clientes para manejar las solicitudes del cliente.
+     * Ejecuta el manejador de clientes para manejar las solicitudes del cliente.
      */
     @Override
     public void run(){
         try {
             openConnection();
 
-            String clientInput;
-            Request request;
-
-            while (true){
-                clientInput = in.readLine();
-                logger.debug("Request Received: " + clientInput);
-                request = gson.fromJson(clientInput,Request.class);
-                handleRequest(request);
+            if (frameIn != null){
+                while (frameIn.next()){
+                    if (frameIn.type() != FrameProtocol.REQUEST){
+                        send(new Response(Response.Status.ERROR,"Malformed Request",LocalDateTime.now().toString()));
+                        continue;
+                    }
+                    handleRequest(() -> frameIn.readJson(gson,Request.class));
+                }
+            }else {
+                String clientInput;
+                while ((clientInput = in.readLine()) != null){
+                    String line = clientInput;
+                    handleRequest(() -> gson.fromJson(line,Request.class));
+                }
             }
 
         } catch (IOException e) {
             logger.error("Error: " + e.getMessage(), e);
-        }catch (ServerException ex){
-            out.println(gson.toJson(new Response(Response.Status.ERROR,ex.getMessage(),LocalDateTime.now().toString())));
+        } finally {
+            try {
+                closeConnection();
+            } catch (IOException e) {
+                logger.error("Error: " + e.getMessage(), e);
+            }
         }
     }
 
     /**
-     * Abre la conexion con el cliente.
-     *
-     * @throws IOException Si ocurre un error al abrir la conexion.
-     */
-    public void openConnection() throws IOException {
-        logger.debug("Connectando con el cliente numero: " + clientNumber);
-        in = new BufferedReader(new InputStreamReader(clientSocket.getInputStream()));
-        out = new PrintWriter(clientSocket.getOutputStream(),true);
-    }
-
-    /**
-     * Cierra la conexion con el cliente.
-     *
-     * @throws IOException Si ocurre un error al cerrar la conexion.
-     */
-    public void closeConnection() throws IOException {
-        logger.debug("Cerrando la conexion con el cliente numero: " + clientNumber);
-        in.close();
-        out.close();
-        clientSocket.close();
-    }
-
-    /**
-     * Maneja una solicitud recibida del cliente.
+     * Convierte los datos recibidos en una solicitud y la procesa. Si no se pueden convertir, o la solicitud falla
+     * por cualquier motivo, se envia una respuesta de error y la conexion sigue abierta para las siguientes.
      *
-     * @param request La solicitud recibida del cliente.
-     * @throws ServerException Si se produce un error en el servidor al procesar la solicitud.
+     * @param parser La conversion de los datos recibidos en una solicitud.
      */
-    private void handleRequest(Request request) throws ServerException {
-        logger.debug("Request Handler: " + request);
-
-        switch (request.type()){
-            case LOGIN -> processLogin(request);
-            case SALIR -> processSalir();
-            case GETALL -> processGetAll(request);
-            case GETBYID -> processGetById(request);
-            case GETBYMODEL -> processGetByModel(request);
-            case GETBYLAUNCHDATE -> processGetByLaunchYear(request);
-            case POST -> processPost(request);
-            case UPDATE -> processUpdate(request);
-            case DELETE -> processDelete(request);
-            default -> new Response(Response.Status.ERROR, "Not implemented Request", LocalDateTime.now().toString());
+    private void handleRequest(Supplier<Request> parser) {
+        Request request;
+        try {
+            request = parser.get();
+        } catch (JsonParseException e) {
+            request = null;
         }
-    }
-    /**
-     * Procesa la solicitud de salida (SALIR) del cliente y envia una respuesta de despedida.
-     */
-    private void processSalir(){
-        out.println(gson.toJson(new Response(Response.Status.BYE,"Adios",LocalDateTime.now().toString())));
-    }
-    /**
-     * Procesa la solicitud de inicio de sesion (LOGIN) del cliente y genera un token de autenticacion si es valido.
-     *
-     * @param request La solicitud de inicio de sesion del cliente.
-     * @throws ServerException Si se produce un error durante el proceso de inicio de sesion.
-     */
-    private void processLogin(Request request) throws ServerException {
-        logger.debug("Requested login Recieved: " + request);
-
-        Login login = gson.fromJson(String.valueOf(request.content()),new TypeToken<Login>(){}.getType());
-
-        var user = UserRepository.getInstance().findByUsername(login.username());
-        if (user.isEmpty() || !BCrypt.checkpw(login.password(),user.get().password())){
-            logger.warn("User not found or wrong password");
-            throw  new ServerException("User not found or wrong password");
+        if (request == null){
+            send(new Response(Response.Status.ERROR,"Malformed Request",LocalDateTime.now().toString()));
+            return;
         }
 
-        var token = TokenService.getInstance().createToken(user.get(),Server.TOKEN_SECRET,Server.TOKEN_EXPIRATION);
-
-        logger.debug("Sending Response: " + token);
-        out.println(gson.toJson(new Response(Response.Status.TOKEN,token,LocalDateTime.now().toString())));
+        logger.debug("Request Received: " + request);
+        try {
+            requestProcessor.handleRequest(request, this);
+        } catch (ServerException ex){
+            send(new Response(Response.Status.ERROR,ex.getMessage(),LocalDateTime.now().toString(),request.requestId()));
+        } catch (RuntimeException ex){
+            logger.error("Error: " + ex.getMessage(), ex);
+            send(new Response(Response.Status.ERROR,ex.getMessage(),LocalDateTime.now().toString(),request.requestId()));
+        }
     }
+
     /**
-     * Procesa un token de autenticacion y verifica su validez, devolviendo el usuario correspondiente si es valido.
+     * Abre la conexion con el cliente. Si el primer byte recibido es el de negociacion del protocolo de tramas,
+     * responde con las opciones aceptadas y usa tramas; en otro caso usa lineas JSON.
      *
-     * @param token El token de autenticacion a procesar.
-     * @return Un objeto Optional que contiene el usuario autenticado si el token es valido.
-     * @throws ServerException Si se produce un error al verificar o procesar el token.
+     * @throws IOException Si ocurre un error al abrir la conexion.
      */
-
-    private Optional<User> processToken(String token) throws ServerException {
-        if (TokenService.getInstance().verifyToken(token,Server.TOKEN_SECRET)){
-            logger.debug("Token verified");
-            var claims = TokenService.getInstance().getClaims(token,Server.TOKEN_SECRET);
-            var id = claims.get("userid").asInt();
-            var user = UserRepository.getInstance().findById(id);
-            if (user.isEmpty()){
-                logger.error("User Wrong Authentication");
-                throw new ServerException("User Wrong Authentication");
+    public void openConnection() throws IOException {
+        logger.debug("Connectando con el cliente numero: " + clientNumber);
+        InputStream input = new BufferedInputStream(clientSocket.getInputStream());
+        OutputStream output = clientSocket.getOutputStream();
+
+        input.mark(1);
+        boolean framed = (byte) input.read() == FrameProtocol.MAGIC;
+        if (framed){
+            int flags = input.read();
+            if (flags < 0){
+                throw new EOFException("Connection closed during protocol negotiation");
             }
-            return user;
+            flags &= FrameProtocol.SUPPORTED_FLAGS;
+            FrameProtocol.writeHello(output, flags);
+            output.flush();
+            logger.debug("Protocolo de tramas negociado con el cliente numero: " + clientNumber + ", opciones: " + flags);
+            frameIn = new FrameReader(input);
+            encoder = new ResponseEncoder(gson, true, flags);
         }else {
-            logger.error("Token not verified");
-            throw new ServerException("Token not verified");
+            input.reset();
+            in = new BufferedReader(new InputStreamReader(input));
+            encoder = new ResponseEncoder(gson, false, 0);
         }
-
-    }
-
-    /**
-     * Procesa la solicitud para obtener todos los Funkos y envia una respuesta que contiene la lista de Funkos.
-     *
-     * @param request La solicitud de obtener todos los Funkos.
-     * @throws ServerException Si se produce un error durante el proceso de la solicitud.
-     */
-    private void processGetAll(Request request) throws ServerException {
-        processToken(request.token());
-
-        funkoService.findAll()
-                .collectList()
-                .subscribe(funkos -> {
-                    logger.debug("Sending Response: " + funkos);
-                    var resJson = gson.toJson(funkos);
-                    out.println(gson.toJson(new Response(Response.Status.OK,resJson,LocalDateTime.now().toString())));
-                });
+        out = new ResponseWriter(output);
     }
 
     /**
-     * Procesa la solicitud para obtener un Funko por su ID y envía una respuesta que contiene el Funko encontrado.
+     * Cierra la conexion con el cliente.
      *
-     * @param request La solicitud de obtener un Funko por su ID.
-     * @throws ServerException Si se produce un error durante el proceso de la solicitud.
+     * @throws IOException Si ocurre un error al cerrar la conexion.
      */
-    private void processGetById(Request request) throws ServerException {
-        processToken(request.token());
-
-        var id = Integer.parseInt(request.content());
-        funkoService.findById(id)
-                .subscribe(
-                        funko -> {
-                            logger.debug("Sending Response: " + funko);
-                            var resJson = gson.toJson(funko);
-                            out.println(gson.toJson(new Response(Response.Status.OK,resJson,LocalDateTime.now().toString())));
-                        },
-                        error -> {
-                            logger.error("Error: " + error.getMessage());
-                            out.println(gson.toJson(new Response(Response.Status.ERROR,error.getMessage(),LocalDateTime.now().toString())));
-                        }
-                );
+    public void closeConnection() throws IOException {
+        logger.debug("Cerrando la conexion con el cliente numero: " + clientNumber);
+        if (out != null){
+            out.close();
+        }
+        if (in != null){
+            in.close();
+        }
+        clientSocket.close();
     }
 
     /**
-     * Procesa la solicitud para obtener Funkos por modelo y envia una respuesta que contiene la lista de Funkos encontrados.
+     * Encola una respuesta en la cola de salida del cliente. Puede invocarse desde cualquier hilo.
      *
-     * @param request La solicitud de obtener Funkos por modelo.
-     * @throws ServerException Si se produce un error durante el proceso de la solicitud.
+     * @param response La respuesta que se va a enviar.
      */
-    private void processGetByModel(Request request) throws ServerException {
-        processToken(request.token());
-        Modelo model = Modelo.valueOf(request.content());
-
-        funkoService.findAll()
-                .filter(funko -> funko.getModelo().equals(model))
-                .collectList()
-                .subscribe(
-                        funkos -> {
-                            logger.debug("Sending Response: " + funkos);
-                            var resJson = gson.toJson(funkos);
-                            out.println(gson.toJson(new Response(Response.Status.OK,resJson,LocalDateTime.now().toString())));
-                        },
-                        error ->{
-                            logger.error("Error: " + error.getMessage());
-                            out.println(gson.toJson(new Response(Response.Status.ERROR,error.getMessage(),LocalDateTime.now().toString())));
-                        }
-                );
+    @Override
+    public void send(Response response) {
+        out.send(encoder.encode(response));
     }
 
     /**
-     * Procesa la solicitud para obtener Funkos por ano de lanzamiento y envia una respuesta que contiene la lista de Funkos encontrados.
+     * Encola una respuesta OK con un Funko en la cola de salida del cliente. Puede invocarse desde cualquier hilo.
      *
-     * @param request La solicitud de obtener Funkos por año de lanzamiento.
-     * @throws ServerException Si se produce un error durante el proceso de la solicitud.
+     * @param request La solicitud a la que se responde.
+     * @param funko El Funko que se va a enviar.
      */
-    private void processGetByLaunchYear(Request request) throws ServerException {
-        processToken(request.token());
-        int launchDate = Integer.parseInt(request.content());
-
-        funkoService.findAll()
-                .filter(funko -> funko.getFecha_lanzamiento().getYear() == launchDate)
-                .collectList()
-                .subscribe(
-                        funkos -> {
-                            logger.debug("Sending Response: " + funkos);
-                            var resJson = gson.toJson(funkos);
-                            out.println(gson.toJson(new Response(Response.Status.OK,resJson,LocalDateTime.now().toString())));
-                        },
-                        error ->{
-                            logger.error("Error: " + error.getMessage());
-                            out.println(gson.toJson(new Response(Response.Status.ERROR,error.getMessage(),LocalDateTime.now().toString())));
-                        }
-                );
+    @Override
+    public void sendFunko(Request request, Funko funko) {
+        out.send(encoder.encodeFunko(request, funko));
     }
 
     /**
-     * Procesa la solicitud para crear un nuevo Funko y envia una respuesta que contiene el Funko creado.
+     * Encola una respuesta OK con una lista de Funkos en la cola de salida del cliente. Puede invocarse desde cualquier hilo.
      *
-     * @param request La solicitud de crear un nuevo Funko.
-     * @throws ServerException Si se produce un error durante el proceso de la solicitud.
+     * @param request La solicitud a la que se responde.
+     * @param funkos Los Funkos que se van a enviar.
      */
-    private void processPost(Request request) throws ServerException {
-        var user = processToken(request.token());
-        if (user.isPresent() && user.get().role().equals(User.Role.ADMIN)){
-            Funko funko = gson.fromJson(String.valueOf(request.content()), new TypeToken<Funko>() {
-            }.getType());
-            funkoService.save(funko)
-                    .subscribe(
-                            funkoSave -> {
-                                logger.debug("Sending Response: " + funkoSave);
-                                var resJson = gson.toJson(funkoSave);
-                                out.println(gson.toJson(new Response(Response.Status.OK,resJson,LocalDateTime.now().toString())));
-                            },
-                            error -> {
-                                logger.error("Error: " + error.getMessage());
-                                out.println(gson.toJson(new Response(Response.Status.ERROR,error.getMessage(),LocalDateTime.now().toString())));
-                            }
-                    );
-        }else {
-            logger.error("User doesn't have the necessary permissions");
-            out.println(gson.toJson(new Response(Response.Status.ERROR,"User doesn't have the necessary permissions",LocalDateTime.now().toString())));
-        }
+    @Override
+    public void sendFunkos(Request request, List<Funko> funkos) {
+        out.send(encoder.encodeFunkos(request, funkos));
     }
 
-
     /**
-     * Procesa la solicitud para actualizar un Funko existente y envia una respuesta que contiene el Funko actualizado.
+     * Encola una respuesta OK con una pagina de Funkos en la cola de salida del cliente. Puede invocarse desde cualquier hilo.
      *
-     * @param request La solicitud de actualizar un Funko existente.
-     * @throws ServerException Si se produce un error durante el proceso de la solicitud.
+     * @param request La solicitud a la que se responde.
+     * @param page La pagina que se va a enviar.
      */
-    private void processUpdate(Request request) throws ServerException {
-        var user = processToken(request.token());
-
-        if (user.isPresent() && user.get().role().equals(User.Role.ADMIN)){
-            Funko funko = gson.fromJson(String.valueOf(request.content()), new TypeToken<Funko>() {
-            }.getType());
-            funkoService.update(funko)
-                    .subscribe(
-                            funkoUpt -> {
-                                logger.debug("Sending Response: " + funkoUpt);
-                                var resJson = gson.toJson(funkoUpt);
-                                out.println(gson.toJson(new Response(Response.Status.OK,resJson,LocalDateTime.now().toString())));
-                            },
-                            error -> {
-                                logger.error("Error: " + error.getMessage());
-                                out.println(gson.toJson(new Response(Response.Status.ERROR,error.getMessage(),LocalDateTime.now().toString())));
-                            }
-                    );
-        }else {
-            logger.error("User doesn't have the necessary permissions");
-            out.println(gson.toJson(new Response(Response.Status.ERROR,"User doesn't have the necessary permissions",LocalDateTime.now().toString())));
-        }
+    @Override
+    public void sendFunkoPage(Request request, FunkoPage page) {
+        out.send(encoder.encodeFunkoPage(request, page));
     }
 
     /**
-     * Procesa la solicitud para eliminar un Funko existente y envia una respuesta que confirma la eliminacion.
+     * Encola un fragmento de una respuesta en streaming en la cola de salida del cliente. Puede invocarse desde cualquier hilo.
      *
-     * @param request La solicitud de eliminar un Funko existente por su ID.
-     * @throws ServerException Si se produce un error durante el proceso de la solicitud.
+     * @param request La solicitud a la que se responde.
+     * @param funkos Los Funkos del fragmento.
+     * @param demand La suscripcion al flujo de origen.
      */
-    private void processDelete(Request request) throws ServerException {
-        var user = processToken(request.token());
-        logger.debug("Borrando");
-        if (user.isPresent() && user.get().role().equals(User.Role.ADMIN)){
-            var id = Integer.parseInt(request.content());
-
-            funkoService.deleteById(id)
-                    .subscribe(
-                            deleted -> {
-                                logger.debug("Sending Response: " + deleted);
-                                var resJson = gson.toJson(deleted);
-                                out.println(gson.toJson(new Response(Response.Status.OK,resJson,LocalDateTime.now().toString())));
-                            },
-                            error ->{
-                                logger.error("Error: " + error.getMessage());
-                                out.println(gson.toJson(new Response(Response.Status.ERROR,error.getMessage(),LocalDateTime.now().toString())));
-                            }
-                    );
-        }else {
-            logger.error("User doesn't have the necessary permissions");
-            out.println(gson.toJson(new Response(Response.Status.ERROR,"User doesn't have the necessary permissions",LocalDateTime.now().toString())));
-        }
+    @Override
+    public void sendFunkoChunk(Request request, List<Funko> funkos, Subscription demand) {
+        out.send(new OutboundMessage(encoder.encodeFunkos(request, Response.Status.CHUNK, funkos), demand));
     }
-
 }
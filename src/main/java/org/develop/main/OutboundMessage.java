@@ -0,0 +1,43 @@
+package org.develop.main;
+
+import org.reactivestreams.Subscription;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Respuesta codificada pendiente de escribir en una conexion. Si forma parte de una respuesta en streaming,
+ * lleva la suscripcion al flujo de origen: cuando se escribe se pide el siguiente fragmento y, si la conexion
+ * falla o se cierra antes, se cancela el flujo para liberar sus recursos.
+ *
+ * @param bytes Los bytes de la respuesta, preparados para lectura.
+ * @param demand La suscripcion del flujo de origen, o null si no es parte de un streaming.
+ */
+public record OutboundMessage(ByteBuffer bytes, Subscription demand) {
+
+    /**
+     * Crea un mensaje que no forma parte de una respuesta en streaming.
+     *
+     * @param bytes Los bytes de la respuesta.
+     */
+    public OutboundMessage(ByteBuffer bytes) {
+        this(bytes, null);
+    }
+
+    /**
+     * Indica que el mensaje se ha escrito en el socket y pide el siguiente fragmento al flujo de origen.
+     */
+    public void written() {
+        if (demand != null) {
+            demand.request(1);
+        }
+    }
+
+    /**
+     * Indica que el mensaje no se va a poder escribir y cancela el flujo de origen.
+     */
+    public void failed() {
+        if (demand != null) {
+            demand.cancel();
+        }
+    }
+}
@@ -0,0 +1,457 @@
+package org.develop.main;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.reflect.TypeToken;
+import org.develop.commons.model.mainUse.Funko;
+import org.develop.commons.model.mainUse.Modelo;
+import org.develop.commons.model.serverUse.Login;
+import org.develop.commons.model.serverUse.PageRequest;
+import org.develop.commons.model.serverUse.Request;
+import org.develop.commons.model.serverUse.Response;
+import org.develop.commons.model.serverUse.User;
+import org.develop.commons.utils.adapters.LocalDateAdapter;
+import org.develop.commons.utils.adapters.LocalDateTimeAdapter;
+import org.develop.exceptions.server.ServerException;
+import org.develop.repositories.users.UserRepository;
+import org.develop.services.funkos.FunkoService;
+import org.develop.services.token.TokenService;
+import org.mindrot.jbcrypt.BCrypt;
+import org.reactivestreams.Subscription;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import reactor.core.publisher.BaseSubscriber;
+import reactor.core.publisher.Flux;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Procesa las solicitudes de los clientes contra el FunkoService y envia las respuestas por el canal indicado.
+ * Es compartido por el servidor bloqueante (ClientHandler) y por el servidor no bloqueante (NioServer).
+ */
+public class RequestProcessor {
+    private static final int STREAM_CHUNK_SIZE = 100;
+
+    private final Logger logger = LoggerFactory.getLogger(RequestProcessor.class);
+    private final Gson gson = new GsonBuilder()
+            .registerTypeAdapter(LocalDate.class, new LocalDateAdapter())
+            .registerTypeAdapter(LocalDateTime.class, new LocalDateTimeAdapter()).create();
+    private final FunkoService funkoService;
+
+    /**
+     * Constructor de la clase RequestProcessor.
+     *
+     * @param funkoService El servicio FunkoService utilizado para realizar operaciones relacionadas con Funkos.
+     */
+    public RequestProcessor(FunkoService funkoService) {
+        this.funkoService = funkoService;
+    }
+
+    /**
+     * Maneja una solicitud recibida del cliente.
+     *
+     * @param request La solicitud recibida del cliente.
+     * @param out El canal por el que se envian las respuestas al cliente.
+     * @throws ServerException Si se produce un error en el servidor al procesar la solicitud.
+     */
+    public void handleRequest(Request request, ResponseChannel out) throws ServerException {
+        logger.debug("Request Handler: " + request);
+
+        switch (request.type()){
+            case LOGIN -> processLogin(request, out);
+            case SALIR -> processSalir(request, out);
+            case GETALL -> processGetAll(request, out);
+            case GETALL_STREAM -> processGetAllStream(request, out);
+            case GETPAGE -> processGetPage(request, out);
+            case GETBYID -> processGetById(request, out);
+            case GETBYNAME -> processGetByName(request, out);
+            case GETBYMODEL -> processGetByModel(request, out);
+            case GETBYLAUNCHDATE -> processGetByLaunchYear(request, out);
+            case POST -> processPost(request, out);
+            case BATCH_POST -> processBatchPost(request, out);
+            case UPDATE -> processUpdate(request, out);
+            case DELETE -> processDelete(request, out);
+            default -> out.send(response(request, Response.Status.ERROR, "Not implemented Request"));
+        }
+    }
+
+    /**
+     * Procesa la solicitud de salida (SALIR) del cliente y envia una respuesta de despedida.
+     *
+     * @param request La solicitud de salida del cliente.
+     */
+    private void processSalir(Request request, ResponseChannel out){
+        out.send(response(request, Response.Status.BYE, "Adios"));
+    }
+
+    /**
+     * Procesa la solicitud de inicio de sesion (LOGIN) del cliente y genera un token de autenticacion si es valido.
+     *
+     * @param request La solicitud de inicio de sesion del cliente.
+     * @throws ServerException Si se produce un error durante el proceso de inicio de sesion.
+     */
+    private void processLogin(Request request, ResponseChannel out) throws ServerException {
+        logger.debug("Requested login Recieved: " + request);
+
+        Login login = gson.fromJson(String.valueOf(request.content()),new TypeToken<Login>(){}.getType());
+
+        var user = UserRepository.getInstance().findByUsername(login.username());
+        if (user.isEmpty() || !BCrypt.checkpw(login.password(),user.get().password())){
+            logger.warn("User not found or wrong password");
+            throw  new ServerException("User not found or wrong password");
+        }
+
+        var token = TokenService.getInstance().createToken(user.get(),Server.TOKEN_SECRET,Server.TOKEN_EXPIRATION);
+
+        logger.debug("Sending Response: " + token);
+        out.send(response(request, Response.Status.TOKEN, token));
+    }
+
+    /**
+     * Procesa un token de autenticacion y verifica su validez, devolviendo el usuario correspondiente si es valido.
+     *
+     * @param token El token de autenticacion a procesar.
+     * @return Un objeto Optional que contiene el usuario autenticado si el token es valido.
+     * @throws ServerException Si se produce un error al verificar o procesar el token.
+     */
+    private Optional<User> processToken(String token) throws ServerException {
+        if (TokenService.getInstance().verifyToken(token,Server.TOKEN_SECRET)){
+            logger.debug("Token verified");
+            var claims = TokenService.getInstance().getClaims(token,Server.TOKEN_SECRET);
+            var id = claims.get("userid").asInt();
+            var user = UserRepository.getInstance().findById(id);
+            if (user.isEmpty()){
+                logger.error("User Wrong Authentication");
+                throw new ServerException("User Wrong Authentication");
+            }
+            return user;
+        }else {
+            logger.error("Token not verified");
+            throw new ServerException("Token not verified");
+        }
+
+    }
+
+    /**
+     * Procesa la solicitud para obtener todos los Funkos y envia una respuesta que contiene la lista de Funkos.
+     *
+     * @param request La solicitud de obtener todos los Funkos.
+     * @throws ServerException Si se produce un error durante el proceso de la solicitud.
+     */
+    private void processGetAll(Request request, ResponseChannel out) throws ServerException {
+        processToken(request.token());
+
+        funkoService.findAll()
+                .collectList()
+                .subscribe(
+                        funkos -> {
+                            logger.debug("Sending Response: " + funkos);
+                            out.sendFunkos(request, funkos);
+                        },
+                        error -> {
+                            logger.error("Error: " + error.getMessage());
+                            out.send(response(request, Response.Status.ERROR, error.getMessage()));
+                        }
+                );
+    }
+
+    /**
+     * Procesa la solicitud para obtener todos los Funkos en streaming. El catalogo se envia en fragmentos CHUNK de
+     * STREAM_CHUNK_SIZE Funkos y termina con una respuesta END que lleva el total enviado. Solo se pide el siguiente
+     * fragmento a la base de datos cuando el anterior se ha escrito en el socket, asi que la memoria usada no depende
+     * del tamano del catalogo.
+     *
+     * @param request La solicitud de obtener todos los Funkos en streaming.
+     * @throws ServerException Si se produce un error durante el proceso de la solicitud.
+     */
+    private void processGetAllStream(Request request, ResponseChannel out) throws ServerException {
+        processToken(request.token());
+
+        funkoService.findAll()
+                .buffer(STREAM_CHUNK_SIZE)
+                .subscribe(new BaseSubscriber<List<Funko>>() {
+                    private long sent = 0;
+
+                    @Override
+                    protected void hookOnSubscribe(Subscription subscription) {
+                        request(1);
+                    }
+
+                    @Override
+                    protected void hookOnNext(List<Funko> chunk) {
+                        sent += chunk.size();
+                        logger.debug("Sending Chunk: " + chunk.size() + " funkos");
+                        out.sendFunkoChunk(request, chunk, this);
+                    }
+
+                    @Override
+                    protected void hookOnComplete() {
+                        out.send(response(request, Response.Status.END, String.valueOf(sent)));
+                    }
+
+                    @Override
+                    protected void hookOnError(Throwable error) {
+                        logger.error("Error: " + error.getMessage());
+                        out.send(response(request, Response.Status.ERROR, error.getMessage()));
+                    }
+                });
+    }
+
+    /**
+     * Procesa la solicitud para obtener una pagina de Funkos a partir de un cursor y envia una respuesta con la pagina
+     * y el cursor de la siguiente.
+     *
+     * @param request La solicitud de obtener una pagina, con un PageRequest en JSON como contenido.
+     * @throws ServerException Si se produce un error durante el proceso de la solicitud.
+     */
+    private void processGetPage(Request request, ResponseChannel out) throws ServerException {
+        processToken(request.token());
+        PageRequest pageRequest = request.content() == null
+                ? new PageRequest(null, null)
+                : gson.fromJson(request.content(), PageRequest.class);
+
+        funkoService.findPage(pageRequest.afterId(), pageRequest.size())
+                .subscribe(
+                        page -> {
+                            logger.debug("Sending Response: " + page.funkos().size() + " funkos, next cursor " + page.nextCursor());
+                            out.sendFunkoPage(request, page);
+                        },
+                        error -> {
+                            logger.error("Error: " + error.getMessage());
+                            out.send(response(request, Response.Status.ERROR, error.getMessage()));
+                        }
+                );
+    }
+
+    /**
+     * Procesa la solicitud para obtener un Funko por su ID y envía una respuesta que contiene el Funko encontrado.
+     *
+     * @param request La solicitud de obtener un Funko por su ID.
+     * @throws ServerException Si se produce un error durante el proceso de la solicitud.
+     */
+    private void processGetById(Request request, ResponseChannel out) throws ServerException {
+        processToken(request.token());
+
+        var id = Integer.parseInt(request.content());
+        funkoService.findById(id)
+                .subscribe(
+                        funko -> {
+                            logger.debug("Sending Response: " + funko);
+                            out.sendFunko(request, funko);
+                        },
+                        error -> {
+                            logger.error("Error: " + error.getMessage());
+                            out.send(response(request, Response.Status.ERROR, error.getMessage()));
+                        }
+                );
+    }
+
+    /**
+     * Procesa la solicitud para obtener Funkos por nombre y envia una respuesta que contiene la lista de Funkos encontrados.
+     * Si el texto termina en '*' se buscan los Funkos cuyo nombre empieza por el resto del texto.
+     *
+     * @param request La solicitud de obtener Funkos por nombre.
+     * @throws ServerException Si se produce un error durante el proceso de la solicitud.
+     */
+    private void processGetByName(Request request, ResponseChannel out) throws ServerException {
+        processToken(request.token());
+        String name = request.content();
+        if (name == null) {
+            out.send(response(request, Response.Status.ERROR, "Name to search is required"));
+            return;
+        }
+
+        (name.endsWith("*")
+                ? funkoService.findByNamePrefix(name.substring(0, name.length() - 1))
+                : funkoService.findByName(name))
+                .collectList()
+                .subscribe(
+                        funkos -> {
+                            logger.debug("Sending Response: " + funkos);
+                            out.sendFunkos(request, funkos);
+                        },
+                        error ->{
+                            logger.error("Error: " + error.getMessage());
+                            out.send(response(request, Response.Status.ERROR, error.getMessage()));
+                        }
+                );
+    }
+
+    /**
+     * Procesa la solicitud para obtener Funkos por modelo y envia una respuesta que contiene la lista de Funkos encontrados.
+     *
+     * @param request La solicitud de obtener Funkos por modelo.
+     * @throws ServerException Si se produce un error durante el proceso de la solicitud.
+     */
+    private void processGetByModel(Request request, ResponseChannel out) throws ServerException {
+        processToken(request.token());
+        Modelo model = Modelo.valueOf(request.content());
+
+        funkoService.findByModelo(model)
+                .collectList()
+                .subscribe(
+                        funkos -> {
+                            logger.debug("Sending Response: " + funkos);
+                            out.sendFunkos(request, funkos);
+                        },
+                        error ->{
+                            logger.error("Error: " + error.getMessage());
+                            out.send(response(request, Response.Status.ERROR, error.getMessage()));
+                        }
+                );
+    }
+
+    /**
+     * Procesa la solicitud para obtener Funkos por ano de lanzamiento y envia una respuesta que contiene la lista de Funkos encontrados.
+     *
+     * @param request La solicitud de obtener Funkos por año de lanzamiento.
+     * @throws ServerException Si se produce un error durante el proceso de la solicitud.
+     */
+    private void processGetByLaunchYear(Request request, ResponseChannel out) throws ServerException {
+        processToken(request.token());
+        int launchDate = Integer.parseInt(request.content());
+
+        funkoService.findByLaunchYear(launchDate)
+                .collectList()
+                .subscribe(
+                        funkos -> {
+                            logger.debug("Sending Response: " + funkos);
+                            out.sendFunkos(request, funkos);
+                        },
+                        error ->{
+                            logger.error("Error: " + error.getMessage());
+                            out.send(response(request, Response.Status.ERROR, error.getMessage()));
+                        }
+                );
+    }
+
+    /**
+     * Procesa la solicitud para crear un nuevo Funko y envia una respuesta que contiene el Funko creado.
+     *
+     * @param request La solicitud de crear un nuevo Funko.
+     * @throws ServerException Si se produce un error durante el proceso de la solicitud.
+     */
+    private void processPost(Request request, ResponseChannel out) throws ServerException {
+        var user = processToken(request.token());
+        if (user.isPresent() && user.get().role().equals(User.Role.ADMIN)){
+            Funko funko = gson.fromJson(String.valueOf(request.content()), new TypeToken<Funko>() {
+            }.getType());
+            funkoService.save(funko)
+                    .subscribe(
+                            funkoSave -> {
+                                logger.debug("Sending Response: " + funkoSave);
+                                out.sendFunko(request, funkoSave);
+                            },
+                            error -> {
+                                logger.error("Error: " + error.getMessage());
+                                out.send(response(request, Response.Status.ERROR, error.getMessage()));
+                            }
+                    );
+        }else {
+            logger.error("User doesn't have the necessary permissions");
+            out.send(response(request, Response.Status.ERROR, "User doesn't have the necessary permissions"));
+        }
+    }
+
+    /**
+     * Procesa la solicitud para crear varios Funkos de una vez y envia una respuesta con el numero de Funkos creados.
+     *
+     * @param request La solicitud de crear Funkos, con la lista de Funkos en JSON como contenido.
+     * @throws ServerException Si se produce un error durante el proceso de la solicitud.
+     */
+    private void processBatchPost(Request request, ResponseChannel out) throws ServerException {
+        var user = processToken(request.token());
+        if (user.isPresent() && user.get().role().equals(User.Role.ADMIN)){
+            List<Funko> funkos = gson.fromJson(String.valueOf(request.content()), new TypeToken<List<Funko>>() {
+            }.getType());
+            funkoService.saveAll(Flux.fromIterable(funkos))
+                    .count()
+                    .subscribe(
+                            saved -> {
+                                logger.debug("Sending Response: " + saved + " funkos saved");
+                                out.send(response(request, Response.Status.OK, String.valueOf(saved)));
+                            },
+                            error -> {
+                                logger.error("Error: " + error.getMessage());
+                                out.send(response(request, Response.Status.ERROR, error.getMessage()));
+                            }
+                    );
+        }else {
+            logger.error("User doesn't have the necessary permissions");
+            out.send(response(request, Response.Status.ERROR, "User doesn't have the necessary permissions"));
+        }
+    }
+
+    /**
+     * Procesa la solicitud para actualizar un Funko existente y envia una respuesta que contiene el Funko actualizado.
+     *
+     * @param request La solicitud de actualizar un Funko existente.
+     * @throws ServerException Si se produce un error durante el proceso de la solicitud.
+     */
+    private void processUpdate(Request request, ResponseChannel out) throws ServerException {
+        var user = processToken(request.token());
+
+        if (user.isPresent() && user.get().role().equals(User.Role.ADMIN)){
+            Funko funko = gson.fromJson(String.valueOf(request.content()), new TypeToken<Funko>() {
+            }.getType());
+            funkoService.update(funko)
+                    .subscribe(
+                            funkoUpt -> {
+                                logger.debug("Sending Response: " + funkoUpt);
+                                out.sendFunko(request, funkoUpt);
+                            },
+                            error -> {
+                                logger.error("Error: " + error.getMessage());
+                                out.send(response(request, Response.Status.ERROR, error.getMessage()));
+                            }
+                    );
+        }else {
+            logger.error("User doesn't have the necessary permissions");
+            out.send(response(request, Response.Status.ERROR, "User doesn't have the necessary permissions"));
+        }
+    }
+
+    /**
+     * Procesa la solicitud para eliminar un Funko existente y envia una respuesta que confirma la eliminacion.
+     *
+     * @param request La solicitud de eliminar un Funko existente por su ID.
+     * @throws ServerException Si se produce un error durante el proceso de la solicitud.
+     */
+    private void processDelete(Request request, ResponseChannel out) throws ServerException {
+        var user = processToken(request.token());
+        logger.debug("Borrando");
+        if (user.isPresent() && user.get().role().equals(User.Role.ADMIN)){
+            var id = Integer.parseInt(request.content());
+
+            funkoService.deleteById(id)
+                    .subscribe(
+                            deleted -> {
+                                logger.debug("Sending Response: " + deleted);
+                                out.sendFunko(request, deleted);
+                            },
+                            error ->{
+                                logger.error("Error: " + error.getMessage());
+                                out.send(response(request, Response.Status.ERROR, error.getMessage()));
+                            }
+                    );
+        }else {
+            logger.error("User doesn't have the necessary permissions");
+            out.send(response(request, Response.Status.ERROR, "User doesn't have the necessary permissions"));
+        }
+    }
+
+    /**
+     * Crea una respuesta para una solicitud, repitiendo su identificador de correlacion.
+     *
+     * @param request La solicitud a la que se responde.
+     * @param status El estado de la respuesta.
+     * @param content El contenido de la respuesta.
+     * @return La respuesta con el identificador de la solicitud.
+     */
+    private Response response(Request request, Response.Status status, String content) {
+        return new Response(status, content, LocalDateTime.now().toString(), request.requestId());
+    }
+}
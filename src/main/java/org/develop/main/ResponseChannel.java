@@ -0,0 +1,61 @@
+package org.develop.main;
+
+import org.develop.commons.model.mainUse.Funko;
+import org.develop.commons.model.mainUse.FunkoPage;
+import org.develop.commons.model.serverUse.Request;
+import org.develop.commons.model.serverUse.Response;
+import org.reactivestreams.Subscription;
+
+import java.util.List;
+
+/**
+ * Canal de salida por el que se envian las respuestas a un cliente, independiente del modo de conexion
+ * (socket bloqueante o canal no bloqueante).
+ */
+public interface ResponseChannel {
+
+    /**
+     * Envia una respuesta al cliente. Puede invocarse desde cualquier hilo.
+     *
+     * @param response La respuesta que se va a enviar.
+     */
+    void send(Response response);
+
+    /**
+     * Envia una respuesta OK con un Funko, codificado segun el protocolo negociado con el cliente.
+     * Puede invocarse desde cualquier hilo.
+     *
+     * @param request La solicitud a la que se responde.
+     * @param funko El Funko que se va a enviar.
+     */
+    void sendFunko(Request request, Funko funko);
+
+    /**
+     * Envia una respuesta OK con una lista de Funkos, codificada segun el protocolo negociado con el cliente.
+     * Puede invocarse desde cualquier hilo.
+     *
+     * @param request La solicitud a la que se responde.
+     * @param funkos Los Funkos que se van a enviar.
+     */
+    void sendFunkos(Request request, List<Funko> funkos);
+
+    /**
+     * Envia una respuesta OK con una pagina de Funkos y el cursor de la siguiente, codificada segun el protocolo
+     * negociado con el cliente. Puede invocarse desde cualquier hilo.
+     *
+     * @param request La solicitud a la que se responde.
+     * @param page La pagina que se va a enviar.
+     */
+    void sendFunkoPage(Request request, FunkoPage page);
+
+    /**
+     * Envia un fragmento CHUNK de una respuesta en streaming. Cuando el fragmento se ha escrito en el socket se pide
+     * el siguiente con {@code demand.request(1)}; si la conexion falla o se cierra se cancela {@code demand}.
+     * Puede invocarse desde cualquier hilo.
+     *
+     * @param request La solicitud a la que se responde.
+     * @param funkos Los Funkos del fragmento.
+     * @param demand La suscripcion al flujo de origen.
+     */
+    void sendFunkoChunk(Request request, List<Funko> funkos, Subscription demand);
+}
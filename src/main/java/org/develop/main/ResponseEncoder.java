@@ -0,0 +1,157 @@
+package org.develop.main;
+
+import com.google.gson.Gson;
+import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonWriter;
+import org.develop.commons.model.mainUse.Funko;
+import org.develop.commons.model.mainUse.FunkoPage;
+import org.develop.commons.model.serverUse.Request;
+import org.develop.commons.model.serverUse.Response;
+import org.develop.commons.utils.protocol.FrameBuffer;
+import org.develop.commons.utils.protocol.FrameProtocol;
+import org.develop.commons.utils.protocol.FunkoCodec;
+
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.lang.reflect.Type;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Convierte las respuestas en los bytes que se envian al cliente, segun el protocolo negociado en la conexion:
+ * lineas JSON, tramas JSON, tramas JSON con los Funkos dentro del sobre o tramas con los Funkos en binario.
+ */
+public class ResponseEncoder {
+    private static final Type FUNKO_LIST_TYPE = new TypeToken<List<Funko>>(){}.getType();
+
+    private final Gson gson;
+    private final boolean framed;
+    private final boolean binaryFunkos;
+    private final boolean inlineJson;
+
+    /**
+     * Constructor de la clase ResponseEncoder.
+     *
+     * @param gson El Gson con el que se serializan las respuestas JSON.
+     * @param framed true si la conexion usa el protocolo de tramas.
+     * @param flags Las opciones del protocolo de tramas aceptadas para la conexion.
+     */
+    public ResponseEncoder(Gson gson, boolean framed, int flags) {
+        this.gson = gson;
+        this.framed = framed;
+        this.binaryFunkos = framed && (flags & FrameProtocol.FLAG_BINARY_FUNKOS) != 0;
+        this.inlineJson = framed && !binaryFunkos && (flags & FrameProtocol.FLAG_INLINE_JSON) != 0;
+    }
+
+    /**
+     * Codifica una respuesta.
+     *
+     * @param response La respuesta.
+     * @return Los bytes de la respuesta, preparados para lectura.
+     */
+    public ByteBuffer encode(Response response) {
+        if (framed) {
+            return FrameProtocol.encodeJson(FrameProtocol.RESPONSE, gson, response);
+        }
+        return ByteBuffer.wrap((gson.toJson(response) + "\n").getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Codifica una respuesta OK con un Funko.
+     *
+     * @param request La solicitud a la que se responde.
+     * @param funko El Funko.
+     * @return Los bytes de la respuesta, preparados para lectura.
+     */
+    public ByteBuffer encodeFunko(Request request, Funko funko) {
+        if (binaryFunkos) {
+            return FunkoCodec.encodeFunkoFrame(request.requestId(), funko);
+        }
+        if (inlineJson) {
+            return encodeInline(request, Response.Status.OK, FrameProtocol.FUNKO_FIELD, funko, Funko.class, null);
+        }
+        return encode(new Response(Response.Status.OK, gson.toJson(funko), LocalDateTime.now().toString(), request.requestId()));
+    }
+
+    /**
+     * Codifica una respuesta OK con una lista de Funkos.
+     *
+     * @param request La solicitud a la que se responde.
+     * @param funkos Los Funkos.
+     * @return Los bytes de la respuesta, preparados para lectura.
+     */
+    public ByteBuffer encodeFunkos(Request request, List<Funko> funkos) {
+        return encodeFunkos(request, Response.Status.OK, funkos);
+    }
+
+    /**
+     * Codifica una respuesta con una lista de Funkos y el estado indicado: OK para una respuesta completa
+     * o CHUNK para un fragmento de una respuesta en streaming.
+     *
+     * @param request La solicitud a la que se responde.
+     * @param status El estado de la respuesta.
+     * @param funkos Los Funkos.
+     * @return Los bytes de la respuesta, preparados para lectura.
+     */
+    public ByteBuffer encodeFunkos(Request request, Response.Status status, List<Funko> funkos) {
+        if (binaryFunkos) {
+            byte type = status == Response.Status.CHUNK ? FrameProtocol.FUNKO_CHUNK : FrameProtocol.FUNKO_LIST;
+            return FunkoCodec.encodeFunkoListFrame(type, request.requestId(), funkos);
+        }
+        if (inlineJson) {
+            return encodeInline(request, status, FrameProtocol.FUNKOS_FIELD, funkos, FUNKO_LIST_TYPE, null);
+        }
+        return encode(new Response(status, gson.toJson(funkos), LocalDateTime.now().toString(), request.requestId()));
+    }
+
+    /**
+     * Codifica una respuesta OK con una pagina de Funkos y el cursor de la siguiente.
+     *
+     * @param request La solicitud a la que se responde.
+     * @param page La pagina.
+     * @return Los bytes de la respuesta, preparados para lectura.
+     */
+    public ByteBuffer encodeFunkoPage(Request request, FunkoPage page) {
+        if (binaryFunkos) {
+            return FunkoCodec.encodeFunkoPageFrame(request.requestId(), page);
+        }
+        if (inlineJson) {
+            return encodeInline(request, Response.Status.OK, FrameProtocol.FUNKOS_FIELD, page.funkos(), FUNKO_LIST_TYPE, page.nextCursor());
+        }
+        return encode(new Response(Response.Status.OK, gson.toJson(page), LocalDateTime.now().toString(), request.requestId()));
+    }
+
+    /**
+     * Escribe en una sola pasada el sobre de una respuesta con la carga como JSON dentro del propio sobre,
+     * directamente en el buffer de la trama y sin serializar antes la carga a un String.
+     *
+     * @param request La solicitud a la que se responde.
+     * @param status El estado de la respuesta.
+     * @param field El campo del sobre en el que va la carga.
+     * @param payload La carga.
+     * @param payloadType El tipo de la carga.
+     * @param nextCursor El cursor de la pagina siguiente, o null si la respuesta no es una pagina o es la ultima.
+     * @return La trama completa, preparada para lectura.
+     */
+    private ByteBuffer encodeInline(Request request, Response.Status status, String field, Object payload, Type payloadType, Integer nextCursor) {
+        try {
+            FrameBuffer frame = new FrameBuffer();
+            JsonWriter writer = gson.newJsonWriter(new OutputStreamWriter(frame, StandardCharsets.UTF_8));
+            writer.beginObject();
+            writer.name("status").value(status.name());
+            writer.name("createdAt").value(LocalDateTime.now().toString());
+            writer.name("requestId").value(request.requestId());
+            writer.name(FrameProtocol.NEXT_CURSOR_FIELD).value(nextCursor);
+            writer.name(field);
+            gson.toJson(payload, payloadType, writer);
+            writer.endObject();
+            writer.flush();
+            return frame.toFrame(FrameProtocol.RESPONSE);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
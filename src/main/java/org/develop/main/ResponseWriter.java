@@ -0,0 +1,115 @@
+package org.develop.main;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Cola de salida de una conexion bloqueante. Las respuestas, ya codificadas por el hilo que las genera, pueden
+ * encolarse desde cualquier hilo (el bucle de lectura o los callbacks de Reactor), pero solo un hilo a la vez
+ * escribe en el socket: el primero que encuentra la cola libre vacia todas las respuestas pendientes y hace un
+ * unico flush, de forma que varias respuestas seguidas viajan en una sola escritura y un solo registro TLS.
+ * Los fragmentos de una respuesta en streaming piden el siguiente al flujo de origen solo despues del flush,
+ * asi que la demanda avanza al ritmo al que el socket acepta datos.
+ */
+class ResponseWriter {
+    private static final int BUFFER_SIZE = 16 * 1024;
+
+    private final Logger logger = LoggerFactory.getLogger(ResponseWriter.class);
+    private final Queue<OutboundMessage> pending = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean draining = new AtomicBoolean(false);
+    private final OutputStream out;
+    private volatile boolean closed;
+
+    /**
+     * Constructor de la clase ResponseWriter.
+     *
+     * @param outputStream El flujo de salida del socket del cliente.
+     */
+    ResponseWriter(OutputStream outputStream) {
+        this.out = new BufferedOutputStream(outputStream, BUFFER_SIZE);
+    }
+
+    /**
+     * Encola una respuesta codificada y, si ningun otro hilo esta escribiendo, vacia la cola.
+     *
+     * @param message Los bytes de la respuesta.
+     */
+    void send(ByteBuffer message) {
+        send(new OutboundMessage(message));
+    }
+
+    /**
+     * Encola una respuesta y, si ningun otro hilo esta escribiendo, vacia la cola.
+     * Si la conexion ya esta cerrada se descarta y se cancela su flujo de origen.
+     *
+     * @param message La respuesta.
+     */
+    void send(OutboundMessage message) {
+        if (closed) {
+            message.failed();
+            return;
+        }
+        pending.add(message);
+        drain();
+    }
+
+    /**
+     * Escribe todas las respuestas pendientes con un unico flush. Si otro hilo ya esta escribiendo,
+     * este recogera la respuesta recien encolada antes de soltar la cola. Los avisos de escritura se
+     * ejecutan despues de soltar la cola, para que el siguiente fragmento pueda encolarse y escribirse.
+     */
+    private void drain() {
+        while (!pending.isEmpty() && draining.compareAndSet(false, true)) {
+            List<OutboundMessage> written = new ArrayList<>();
+            try {
+                OutboundMessage message;
+                while ((message = pending.poll()) != null) {
+                    written.add(message);
+                    ByteBuffer bytes = message.bytes();
+                    out.write(bytes.array(), bytes.arrayOffset() + bytes.position(), bytes.remaining());
+                }
+                out.flush();
+            } catch (IOException e) {
+                logger.error("Error: " + e.getMessage());
+                closed = true;
+                written.forEach(OutboundMessage::failed);
+                written.clear();
+                cancelPending();
+            } finally {
+                draining.set(false);
+            }
+            written.forEach(OutboundMessage::written);
+        }
+    }
+
+    /**
+     * Descarta las respuestas pendientes y cancela sus flujos de origen.
+     */
+    private void cancelPending() {
+        OutboundMessage message;
+        while ((message = pending.poll()) != null) {
+            message.failed();
+        }
+    }
+
+    /**
+     * Cierra el flujo de salida y cancela las respuestas en streaming que queden pendientes.
+     *
+     * @throws IOException Si ocurre un error al cerrar el flujo.
+     */
+    void close() throws IOException {
+        closed = true;
+        cancelPending();
+        out.close();
+    }
+}
@@ -1,12 +1,13 @@
 package org.develop.main;
 
 import org.develop.commons.model.mainUse.MyIDGenerator;
+import org.develop.commons.model.mainUse.MyUUIDGenerator;
 import org.develop.commons.utils.properties.PropertiesReader;
+import org.develop.main.nio.NioServer;
 import org.develop.repositories.funkos.FunkoRepositoryImpl;
 import org.develop.services.database.DatabaseManager;
 import org.develop.services.files.BackupManagerImpl;
 import org.develop.services.funkos.FunkoNotificationImpl;
-import org.develop.services.funkos.FunkoService;
 import org.develop.services.funkos.FunkoServiceImpl;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -19,6 +20,8 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.atomic.AtomicLong;
 
 /**
@@ -59,22 +62,81 @@ public class Server {
             System.setProperty("javax.net.ssl.keyStore", myConfig.get("keyFile"));
             System.setProperty("javax.net.ssl.keyStorePassword", myConfig.get("keyPassword"));
 
-            SSLServerSocketFactory serverFactory = (SSLServerSocketFactory) SSLServerSocketFactory.getDefault();
-            SSLServerSocket serverSocket = (SSLServerSocket) serverFactory.createServerSocket(PUERTO);
+            funkoService.subscribeCache();
+
+            funkoService.buildNameIndex()
+                    .subscribe(
+                            indexed -> logger.info("Indice de nombres construido con " + indexed + " funkos"),
+                            error -> logger.error("Error al construir el indice de nombres: " + error.getMessage())
+                    );
+
+            MyUUIDGenerator uuidGenerator = MyUUIDGenerator.getInstance();
+            funkoService.saveAll(funkoService.imported("funkos.csv").doOnNext(funko -> funko.setUuid(uuidGenerator.generate())))
+                    .count()
+                    .subscribe(
+                            imported -> logger.info("Importados " + imported + " funkos"),
+                            error -> logger.error("Error al importar los funkos: " + error.getMessage())
+                    );
+
+            RequestProcessor requestProcessor = new RequestProcessor(funkoService);
+
+            if (myConfig.get("serverMode").equalsIgnoreCase("nio")) {
+                new NioServer(PUERTO,
+                        Integer.parseInt(myConfig.get("ioEventLoops")),
+                        Integer.parseInt(myConfig.get("ioWorkers")),
+                        requestProcessor,
+                        clientNumber).start();
+            } else {
+                startBlockingServer(requestProcessor,
+                        createConnectionExecutor(myConfig.get("threadMode"), Integer.parseInt(myConfig.get("carrierPoolSize"))));
+            }
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
 
+    /**
+     * Arranca el servidor bloqueante, que atiende a cada cliente con su propio ClientHandler.
+     *
+     * @param requestProcessor El procesador de solicitudes compartido por todos los clientes.
+     * @param connectionExecutor El ejecutor en el que se ejecuta cada ClientHandler.
+     * @throws IOException Si ocurre un error al abrir el socket del servidor.
+     */
+    private static void startBlockingServer(RequestProcessor requestProcessor, ExecutorService connectionExecutor) throws IOException {
+        SSLServerSocketFactory serverFactory = (SSLServerSocketFactory) SSLServerSocketFactory.getDefault();
+        SSLServerSocket serverSocket = (SSLServerSocket) serverFactory.createServerSocket(PUERTO);
 
-            funkoService.imported("funkos.csv").subscribe(fk -> {
-                funkoService.save(fk).subscribe();
-            });
+        logger.debug("🚀 Servidor escuchando en el puerto 3000");
 
-            logger.debug("🚀 Servidor escuchando en el puerto 3000");
+        while (true){
+            connectionExecutor.execute(new ClientHandler(serverSocket.accept(),clientNumber.incrementAndGet(),requestProcessor));
+        }
+    }
 
-            while (true){
-                new ClientHandler(serverSocket.accept(),clientNumber.incrementAndGet(),funkoService).start();
+    /**
+     * Crea el ejecutor de conexiones del servidor bloqueante. En modo "virtual" cada cliente se atiende en un hilo virtual,
+     * de forma que las esperas en readLine() no ocupan un hilo del sistema; en modo "platform" se usa un hilo de plataforma por cliente.
+     * Los hilos virtuales necesitan Java 21 en tiempo de ejecucion; si no estan disponibles se usan hilos de plataforma.
+     *
+     * @param threadMode El modo de hilos, "platform" o "virtual".
+     * @param carrierPoolSize El numero de hilos portadores de los hilos virtuales, o 0 para usar el numero de procesadores.
+     * @return El ejecutor en el que se ejecutaran los ClientHandler.
+     */
+    private static ExecutorService createConnectionExecutor(String threadMode, int carrierPoolSize) {
+        if (threadMode.equalsIgnoreCase("virtual")) {
+            if (carrierPoolSize > 0) {
+                System.setProperty("jdk.virtualThreadScheduler.parallelism", String.valueOf(carrierPoolSize));
+            }
+            try {
+                ExecutorService executor = (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+                logger.debug("Atendiendo clientes con hilos virtuales");
+                return executor;
+            } catch (ReflectiveOperationException e) {
+                logger.warn("Hilos virtuales no disponibles en Java " + Runtime.version().feature() + ", se usan hilos de plataforma");
             }
-        } catch (IOException e) {
-            throw new RuntimeException(e);
         }
+        logger.debug("Atendiendo clientes con hilos de plataforma");
+        return Executors.newCachedThreadPool();
     }
 
     /**
@@ -85,6 +147,11 @@ public class Server {
      *   - "keyPassword": Contrasena asociada al archivo de clave.
      *   - "tokenSecret": Clave secreta para firmar y verificar tokens de autenticacion.
      *   - "tokenExpiration": Duracion de validez de los tokens de autenticacion en milisegundos.
+     *   - "serverMode": Modo de atencion de clientes, "blocking" (un hilo por cliente) o "nio" (bucles de eventos).
+     *   - "ioEventLoops": Numero de bucles de eventos de E/S en modo "nio".
+     *   - "ioWorkers": Numero de hilos que procesan solicitudes en modo "nio".
+     *   - "threadMode": Tipo de hilo de cada cliente en modo "blocking", "platform" o "virtual".
+     *   - "carrierPoolSize": Numero de hilos portadores de los hilos virtuales (0 = numero de procesadores).
      *
      * @throws IllegalStateException Si falta la ruta del archivo de clave o la contrasena en la configuracion.
      * @throws FileNotFoundException Si el archivo de clave no se encuentra en la ruta especificada.
@@ -98,6 +165,11 @@ public class Server {
             String keyPassword = propertiesReader.getProperty("keyPassword");
             String tokenSecret = propertiesReader.getProperty("tokenSecret");
             String tokenExpiration = propertiesReader.getProperty("tokenExpiration");
+            String serverMode = propertiesReader.getProperty("serverMode", "blocking");
+            String ioEventLoops = propertiesReader.getProperty("ioEventLoops", "2");
+            String ioWorkers = propertiesReader.getProperty("ioWorkers", String.valueOf(Runtime.getRuntime().availableProcessors()));
+            String threadMode = propertiesReader.getProperty("threadMode", "platform");
+            String carrierPoolSize = propertiesReader.getProperty("carrierPoolSize", "0");
 
             if (keyFile.isEmpty() || keyPassword.isEmpty()){
                 throw new IllegalStateException("Missing keyFile or keyPassword");
@@ -112,6 +184,11 @@ public class Server {
             configMap.put("keyPassword", keyPassword);
             configMap.put("tokenSecret", tokenSecret);
             configMap.put("tokenExpiration", tokenExpiration);
+            configMap.put("serverMode", serverMode);
+            configMap.put("ioEventLoops", ioEventLoops);
+            configMap.put("ioWorkers", ioWorkers);
+            configMap.put("threadMode", threadMode);
+            configMap.put("carrierPoolSize", carrierPoolSize);
 
             return configMap;
         }catch (FileNotFoundException e){
@@ -0,0 +1,564 @@
+package org.develop.main.nio;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import org.develop.commons.model.mainUse.Funko;
+import org.develop.commons.model.mainUse.FunkoPage;
+import org.develop.commons.model.serverUse.Request;
+import org.develop.commons.model.serverUse.Response;
+import org.develop.commons.utils.adapters.LocalDateAdapter;
+import org.develop.commons.utils.adapters.LocalDateTimeAdapter;
+import org.develop.commons.utils.protocol.FrameProtocol;
+import org.develop.exceptions.server.ServerException;
+import org.develop.main.OutboundMessage;
+import org.develop.main.RequestProcessor;
+import org.develop.main.ResponseEncoder;
+import org.develop.main.ResponseChannel;
+import org.reactivestreams.Subscription;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.net.ssl.SSLEngine;
+import javax.net.ssl.SSLEngineResult;
+import javax.net.ssl.SSLException;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.ProtocolException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.function.Supplier;
+
+/**
+ * Conexion TLS no bloqueante con un cliente. Descifra los datos recibidos con SSLEngine, separa las solicitudes
+ * JSON por saltos de linea o por tramas, segun el protocolo negociado, y las entrega al RequestProcessor; las respuestas se encolan desde cualquier hilo
+ * y las cifra y escribe el bucle de eventos propietario.
+ */
+class NioConnection implements ResponseChannel {
+    private static final ByteBuffer EMPTY = ByteBuffer.allocate(0);
+    private static final ByteBuffer[] HANDSHAKE_SOURCE = {EMPTY};
+    private static final int MAX_BATCH = 32;
+    /**
+     * Longitud maxima de una linea JSON, la misma que la de la carga de una trama.
+     */
+    private static final int MAX_LINE_LENGTH = FrameProtocol.MAX_FRAME_LENGTH;
+
+    private final Logger logger = LoggerFactory.getLogger(NioConnection.class);
+    private final Gson gson = new GsonBuilder()
+            .registerTypeAdapter(LocalDate.class, new LocalDateAdapter())
+            .registerTypeAdapter(LocalDateTime.class, new LocalDateTimeAdapter()).create();
+    private final SocketChannel channel;
+    private final SSLEngine engine;
+    private final long clientNumber;
+    private final RequestProcessor requestProcessor;
+    private final Executor workers;
+    private final NioEventLoop eventLoop;
+    private final Queue<OutboundMessage> outbound = new ConcurrentLinkedQueue<>();
+    private final ByteArrayOutputStream line = new ByteArrayOutputStream();
+
+    private SelectionKey key;
+    private ByteBuffer netIn;
+    private ByteBuffer appIn;
+    private ByteBuffer netOut;
+    private volatile Mode mode = Mode.UNKNOWN;
+    private volatile ResponseEncoder encoder;
+    private volatile boolean closeAfterFlush;
+    private volatile boolean closed;
+
+    /**
+     * Constructor de la clase NioConnection.
+     *
+     * @param channel El canal del cliente, ya en modo no bloqueante.
+     * @param engine El SSLEngine en modo servidor para esta conexion.
+     * @param clientNumber Un identificador unico para el cliente.
+     * @param requestProcessor El procesador de solicitudes compartido.
+     * @param workers El pool en el que se procesan las solicitudes.
+     * @param eventLoop El bucle de eventos propietario de la conexion.
+     */
+    NioConnection(SocketChannel channel, SSLEngine engine, long clientNumber, RequestProcessor requestProcessor, Executor workers, NioEventLoop eventLoop) {
+        this.channel = channel;
+        this.engine = engine;
+        this.clientNumber = clientNumber;
+        this.requestProcessor = requestProcessor;
+        this.workers = workers;
+        this.eventLoop = eventLoop;
+
+        int packetSize = engine.getSession().getPacketBufferSize();
+        this.netIn = ByteBuffer.allocate(packetSize);
+        this.appIn = ByteBuffer.allocate(engine.getSession().getApplicationBufferSize());
+        this.netOut = ByteBuffer.allocate(packetSize).flip();
+        this.encoder = new ResponseEncoder(gson, false, 0);
+    }
+
+    /**
+     * Registra la conexion en el selector e inicia el handshake TLS. Se ejecuta en el hilo del bucle de eventos.
+     *
+     * @param selector El selector del bucle de eventos.
+     */
+    void register(Selector selector) {
+        logger.debug("Connectando con el cliente numero: " + clientNumber);
+        try {
+            key = channel.register(selector, SelectionKey.OP_READ, this);
+            engine.beginHandshake();
+        } catch (IOException e) {
+            logger.error("Error: " + e.getMessage(), e);
+            close();
+        }
+    }
+
+    /**
+     * Lee del canal, descifra los registros TLS disponibles y despacha las solicitudes completas.
+     */
+    void onReadable() {
+        try {
+            int read = channel.read(netIn);
+            if (read < 0) {
+                close();
+                return;
+            }
+
+            netIn.flip();
+            while (netIn.hasRemaining()) {
+                SSLEngineResult result = engine.unwrap(netIn, appIn);
+                SSLEngineResult.Status status = result.getStatus();
+
+                if (status == SSLEngineResult.Status.BUFFER_OVERFLOW) {
+                    decode();
+                    int appSize = engine.getSession().getApplicationBufferSize();
+                    if (appIn.remaining() < appSize) {
+                        ByteBuffer bigger = ByteBuffer.allocate(appIn.position() + appSize);
+                        appIn.flip();
+                        bigger.put(appIn);
+                        appIn = bigger;
+                    }
+                    continue;
+                }
+                if (status == SSLEngineResult.Status.BUFFER_UNDERFLOW) {
+                    int packetSize = engine.getSession().getPacketBufferSize();
+                    if (netIn.capacity() < packetSize) {
+                        ByteBuffer bigger = ByteBuffer.allocate(packetSize);
+                        bigger.put(netIn);
+                        bigger.flip();
+                        netIn = bigger;
+                    }
+                    break;
+                }
+                if (status == SSLEngineResult.Status.CLOSED) {
+                    close();
+                    return;
+                }
+
+                SSLEngineResult.HandshakeStatus handshake = result.getHandshakeStatus();
+                if (handshake == SSLEngineResult.HandshakeStatus.NEED_TASK) {
+                    runDelegatedTasks();
+                }
+                if (engine.getHandshakeStatus() == SSLEngineResult.HandshakeStatus.NEED_WRAP) {
+                    flush();
+                    if (closed) {
+                        return;
+                    }
+                    if (netOut.hasRemaining()) {
+                        break;
+                    }
+                } else if (result.bytesConsumed() == 0 && result.bytesProduced() == 0
+                        && handshake != SSLEngineResult.HandshakeStatus.NEED_TASK) {
+                    break;
+                }
+            }
+            netIn.compact();
+
+            decode();
+            flush();
+        } catch (IOException e) {
+            logger.error("Error: " + e.getMessage());
+            close();
+        }
+    }
+
+    /**
+     * Procesa los datos descifrados. El primer byte de la conexion decide el protocolo: el byte de negociacion
+     * de tramas o una linea JSON. Los datos de una trama incompleta se conservan en appIn hasta el siguiente registro.
+     *
+     * @throws IOException Si una trama tiene una longitud no valida o una linea es demasiado larga.
+     */
+    private void decode() throws IOException {
+        appIn.flip();
+        if (mode == Mode.UNKNOWN && appIn.hasRemaining()) {
+            negotiate();
+        }
+        if (mode == Mode.FRAMES) {
+            decodeFrames();
+        } else if (mode == Mode.LINES) {
+            decodeLines();
+        }
+        appIn.compact();
+
+        if (mode == Mode.FRAMES && appIn.position() >= FrameProtocol.HEADER_SIZE) {
+            int frameSize = FrameProtocol.HEADER_SIZE + appIn.getInt(0);
+            if (appIn.capacity() < frameSize + engine.getSession().getApplicationBufferSize()) {
+                ByteBuffer bigger = ByteBuffer.allocate(frameSize + engine.getSession().getApplicationBufferSize());
+                appIn.flip();
+                bigger.put(appIn);
+                appIn = bigger;
+            }
+        }
+    }
+
+    /**
+     * Decide el protocolo de la conexion a partir del primer byte recibido. Si es el de negociacion de tramas,
+     * responde con las opciones aceptadas antes de cualquier respuesta.
+     */
+    private void negotiate() {
+        if (appIn.get(appIn.position()) != FrameProtocol.MAGIC) {
+            mode = Mode.LINES;
+            return;
+        }
+        if (appIn.remaining() < 2) {
+            return;
+        }
+        appIn.get();
+        int flags = appIn.get() & FrameProtocol.SUPPORTED_FLAGS;
+        outbound.add(new OutboundMessage(ByteBuffer.wrap(new byte[]{FrameProtocol.MAGIC, (byte) flags})));
+        encoder = new ResponseEncoder(gson, true, flags);
+        mode = Mode.FRAMES;
+        logger.debug("Protocolo de tramas negociado con el cliente numero: " + clientNumber + ", opciones: " + flags);
+    }
+
+    /**
+     * Separa los datos descifrados en lineas y despacha cada solicitud completa.
+     *
+     * @throws ProtocolException Si una linea supera MAX_LINE_LENGTH sin terminar, para que un cliente que nunca
+     * envia el salto de linea no agote la memoria.
+     */
+    private void decodeLines() throws ProtocolException {
+        while (appIn.hasRemaining()) {
+            byte b = appIn.get();
+            if (b == '\n') {
+                String clientInput = line.toString(StandardCharsets.UTF_8);
+                line.reset();
+                if (!clientInput.isBlank()) {
+                    logger.debug("Request Received: " + clientInput);
+                    dispatch(() -> gson.fromJson(clientInput, Request.class));
+                }
+            } else if (b != '\r') {
+                if (line.size() >= MAX_LINE_LENGTH) {
+                    throw new ProtocolException("Line too long");
+                }
+                line.write(b);
+            }
+        }
+    }
+
+    /**
+     * Despacha las tramas completas que hay en appIn, leyendo la carga directamente del buffer.
+     *
+     * @throws IOException Si una trama tiene una longitud no valida.
+     */
+    private void decodeFrames() throws IOException {
+        while (appIn.remaining() >= FrameProtocol.HEADER_SIZE) {
+            int start = appIn.position();
+            int length = appIn.getInt(start);
+            FrameProtocol.checkLength(length);
+            if (appIn.remaining() < FrameProtocol.HEADER_SIZE + length) {
+                return;
+            }
+            byte type = appIn.get(start + 4);
+            int offset = appIn.arrayOffset() + start + FrameProtocol.HEADER_SIZE;
+            appIn.position(start + FrameProtocol.HEADER_SIZE + length);
+
+            if (type != FrameProtocol.REQUEST) {
+                send(new Response(Response.Status.ERROR, "Malformed Request", LocalDateTime.now().toString()));
+                continue;
+            }
+            byte[] array = appIn.array();
+            dispatch(() -> gson.fromJson(new InputStreamReader(new ByteArrayInputStream(array, offset, length), StandardCharsets.UTF_8), Request.class));
+        }
+    }
+
+    /**
+     * Convierte los datos recibidos en una solicitud y la procesa en el pool de trabajadores.
+     * La conversion se hace en el hilo del bucle de eventos, antes de que se reutilice el buffer. Si no se puede
+     * convertir, o no hay solicitud, se responde con un error sin id de solicitud.
+     *
+     * @param parser La conversion de los datos recibidos en una solicitud.
+     */
+    private void dispatch(Supplier<Request> parser) {
+        Request request = parse(parser);
+        if (request == null) {
+            send(new Response(Response.Status.ERROR, "Malformed Request", LocalDateTime.now().toString()));
+            return;
+        }
+
+        workers.execute(() -> {
+            try {
+                requestProcessor.handleRequest(request, this);
+            } catch (ServerException ex) {
+                send(new Response(Response.Status.ERROR, ex.getMessage(), LocalDateTime.now().toString(), request.requestId()));
+            } catch (RuntimeException ex) {
+                logger.error("Error: " + ex.getMessage(), ex);
+                send(new Response(Response.Status.ERROR, ex.getMessage(), LocalDateTime.now().toString(), request.requestId()));
+            }
+        });
+    }
+
+    /**
+     * Convierte los datos recibidos en una solicitud.
+     *
+     * @param parser La conversion de los datos recibidos en una solicitud.
+     * @return La solicitud, o null si los datos no son una solicitud valida.
+     */
+    private static Request parse(Supplier<Request> parser) {
+        try {
+            return parser.get();
+        } catch (RuntimeException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Encola una respuesta y avisa al bucle de eventos para que la escriba. Puede invocarse desde cualquier hilo.
+     *
+     * @param response La respuesta que se va a enviar.
+     */
+    @Override
+    public void send(Response response) {
+        enqueue(encoder.encode(response), response.status() == Response.Status.BYE);
+    }
+
+    /**
+     * Encola una respuesta OK con un Funko. Puede invocarse desde cualquier hilo.
+     *
+     * @param request La solicitud a la que se responde.
+     * @param funko El Funko que se va a enviar.
+     */
+    @Override
+    public void sendFunko(Request request, Funko funko) {
+        enqueue(encoder.encodeFunko(request, funko), false);
+    }
+
+    /**
+     * Encola una respuesta OK con una lista de Funkos. Puede invocarse desde cualquier hilo.
+     *
+     * @param request La solicitud a la que se responde.
+     * @param funkos Los Funkos que se van a enviar.
+     */
+    @Override
+    public void sendFunkos(Request request, List<Funko> funkos) {
+        enqueue(encoder.encodeFunkos(request, funkos), false);
+    }
+
+    /**
+     * Encola una respuesta OK con una pagina de Funkos. Puede invocarse desde cualquier hilo.
+     *
+     * @param request La solicitud a la que se responde.
+     * @param page La pagina que se va a enviar.
+     */
+    @Override
+    public void sendFunkoPage(Request request, FunkoPage page) {
+        enqueue(encoder.encodeFunkoPage(request, page), false);
+    }
+
+    /**
+     * Encola un fragmento de una respuesta en streaming. El siguiente se pide cuando este se haya cifrado y
+     * pasado al canal, asi que la demanda avanza al ritmo al que el socket acepta datos. Puede invocarse desde cualquier hilo.
+     *
+     * @param request La solicitud a la que se responde.
+     * @param funkos Los Funkos del fragmento.
+     * @param demand La suscripcion al flujo de origen.
+     */
+    @Override
+    public void sendFunkoChunk(Request request, List<Funko> funkos, Subscription demand) {
+        enqueue(new OutboundMessage(encoder.encodeFunkos(request, Response.Status.CHUNK, funkos), demand), false);
+    }
+
+    /**
+     * Encola los bytes de una respuesta y avisa al bucle de eventos para que los escriba.
+     *
+     * @param message Los bytes de la respuesta.
+     * @param last true si la conexion debe cerrarse despues de enviarla.
+     */
+    private void enqueue(ByteBuffer message, boolean last) {
+        enqueue(new OutboundMessage(message), last);
+    }
+
+    /**
+     * Encola una respuesta y avisa al bucle de eventos para que la escriba. Si la conexion ya esta cerrada
+     * se descarta y se cancela su flujo de origen. Si se cierra mientras se encola, close() puede haber vaciado
+     * la cola antes de que llegue el mensaje, asi que se vuelve a comprobar despues y se vacia aqui.
+     *
+     * @param message La respuesta.
+     * @param last true si la conexion debe cerrarse despues de enviarla.
+     */
+    private void enqueue(OutboundMessage message, boolean last) {
+        if (closed) {
+            message.failed();
+            return;
+        }
+        outbound.add(message);
+        if (closed) {
+            OutboundMessage pending;
+            while ((pending = outbound.poll()) != null) {
+                pending.failed();
+            }
+            return;
+        }
+        if (last) {
+            closeAfterFlush = true;
+        }
+        eventLoop.requestFlush(this);
+    }
+
+    /**
+     * Cifra y escribe en el canal los mensajes de handshake y las respuestas pendientes. Si el canal no admite
+     * mas datos se activa OP_WRITE y se continua cuando el selector lo indique.
+     */
+    void flush() {
+        if (closed) {
+            return;
+        }
+        try {
+            while (true) {
+                if (netOut.hasRemaining()) {
+                    channel.write(netOut);
+                    if (netOut.hasRemaining()) {
+                        key.interestOps(SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+                        return;
+                    }
+                }
+
+                SSLEngineResult.HandshakeStatus handshake = engine.getHandshakeStatus();
+                if (handshake == SSLEngineResult.HandshakeStatus.NEED_TASK) {
+                    runDelegatedTasks();
+                    continue;
+                }
+
+                ByteBuffer[] sources;
+                if (handshake == SSLEngineResult.HandshakeStatus.NEED_WRAP) {
+                    sources = HANDSHAKE_SOURCE;
+                } else if (handshake == SSLEngineResult.HandshakeStatus.NOT_HANDSHAKING
+                        || handshake == SSLEngineResult.HandshakeStatus.FINISHED) {
+                    sources = pendingBatch();
+                    if (sources.length == 0) {
+                        break;
+                    }
+                } else {
+                    break;
+                }
+
+                netOut.clear();
+                SSLEngineResult result = engine.wrap(sources, netOut);
+                netOut.flip();
+                if (sources != HANDSHAKE_SOURCE) {
+                    for (ByteBuffer source : sources) {
+                        if (source.hasRemaining()) {
+                            break;
+                        }
+                        OutboundMessage sent = outbound.poll();
+                        if (sent.demand() != null) {
+                            workers.execute(sent::written);
+                        }
+                    }
+                }
+
+                if (result.getStatus() == SSLEngineResult.Status.BUFFER_OVERFLOW) {
+                    netOut = ByteBuffer.allocate(netOut.capacity() + engine.getSession().getPacketBufferSize()).flip();
+                    continue;
+                }
+                if (result.getStatus() == SSLEngineResult.Status.CLOSED) {
+                    close();
+                    return;
+                }
+                if (result.bytesConsumed() == 0 && result.bytesProduced() == 0) {
+                    break;
+                }
+            }
+
+            key.interestOps(SelectionKey.OP_READ);
+            if (closeAfterFlush && outbound.isEmpty()) {
+                close();
+            }
+        } catch (IOException e) {
+            logger.error("Error: " + e.getMessage());
+            close();
+        }
+    }
+
+    /**
+     * Toma sin retirarlas las primeras respuestas pendientes, para que SSLEngine las agrupe en un unico registro TLS.
+     * Solo el hilo del bucle de eventos retira elementos de la cola, asi que el orden de la cabeza es estable.
+     *
+     * @return Los buffers pendientes, como maximo MAX_BATCH.
+     */
+    private ByteBuffer[] pendingBatch() {
+        List<ByteBuffer> batch = new ArrayList<>();
+        for (OutboundMessage message : outbound) {
+            batch.add(message.bytes());
+            if (batch.size() == MAX_BATCH) {
+                break;
+            }
+        }
+        return batch.toArray(new ByteBuffer[0]);
+    }
+
+    /**
+     * Ejecuta en el hilo actual las tareas delegadas del handshake TLS.
+     */
+    private void runDelegatedTasks() {
+        Runnable task;
+        while ((task = engine.getDelegatedTask()) != null) {
+            task.run();
+        }
+    }
+
+    /**
+     * Cierra la conexion con el cliente, enviando close_notify si es posible.
+     */
+    void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        logger.debug("Cerrando la conexion con el cliente numero: " + clientNumber);
+        OutboundMessage pending;
+        while ((pending = outbound.poll()) != null) {
+            pending.failed();
+        }
+        try {
+            engine.closeOutbound();
+            netOut.clear();
+            engine.wrap(EMPTY, netOut);
+            netOut.flip();
+            channel.write(netOut);
+        } catch (SSLException e) {
+            logger.debug("No se ha podido enviar close_notify: " + e.getMessage());
+        } catch (IOException e) {
+            logger.debug("Error al cerrar: " + e.getMessage());
+        }
+        try {
+            if (key != null) {
+                key.cancel();
+            }
+            channel.close();
+        } catch (IOException e) {
+            logger.error("Error: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Protocolo de la conexion, decidido por el primer byte que envia el cliente.
+     */
+    private enum Mode {
+        UNKNOWN, LINES, FRAMES
+    }
+}
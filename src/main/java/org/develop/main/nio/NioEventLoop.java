@@ -0,0 +1,89 @@
+package org.develop.main.nio;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Bucle de eventos de E/S con su propio Selector. Toda la lectura, escritura y el trabajo de SSLEngine
+ * de las conexiones que tiene asignadas se ejecuta en este hilo.
+ */
+class NioEventLoop extends Thread {
+    private final Logger logger = LoggerFactory.getLogger(NioEventLoop.class);
+    private final Selector selector;
+    private final Queue<NioConnection> pendingRegistrations = new ConcurrentLinkedQueue<>();
+    private final Queue<NioConnection> pendingFlushes = new ConcurrentLinkedQueue<>();
+
+    /**
+     * Crea un bucle de eventos con un selector nuevo.
+     *
+     * @param index El indice del bucle, usado para nombrar el hilo.
+     * @throws IOException Si no se puede abrir el selector.
+     */
+    NioEventLoop(int index) throws IOException {
+        super("nio-event-loop-" + index);
+        this.selector = Selector.open();
+    }
+
+    /**
+     * Asigna una conexion nueva a este bucle. Se registra en el selector desde el propio hilo del bucle.
+     *
+     * @param connection La conexion aceptada.
+     */
+    void register(NioConnection connection) {
+        pendingRegistrations.add(connection);
+        selector.wakeup();
+    }
+
+    /**
+     * Solicita que se vacie la cola de salida de una conexion. Puede invocarse desde cualquier hilo.
+     *
+     * @param connection La conexion con respuestas pendientes.
+     */
+    void requestFlush(NioConnection connection) {
+        pendingFlushes.add(connection);
+        selector.wakeup();
+    }
+
+    /**
+     * Ejecuta el bucle de eventos hasta que se interrumpe el hilo.
+     */
+    @Override
+    public void run() {
+        while (!isInterrupted()) {
+            try {
+                selector.select();
+            } catch (IOException e) {
+                logger.error("Error: " + e.getMessage(), e);
+                return;
+            }
+
+            NioConnection connection;
+            while ((connection = pendingRegistrations.poll()) != null) {
+                connection.register(selector);
+            }
+            while ((connection = pendingFlushes.poll()) != null) {
+                connection.flush();
+            }
+
+            Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+            while (keys.hasNext()) {
+                SelectionKey key = keys.next();
+                keys.remove();
+                connection = (NioConnection) key.attachment();
+                if (key.isValid() && key.isReadable()) {
+                    connection.onReadable();
+                }
+                if (key.isValid() && key.isWritable()) {
+                    connection.flush();
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package org.develop.main.nio;
+
+import org.develop.main.RequestProcessor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLEngine;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.security.NoSuchAlgorithmException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Servidor no bloqueante basado en SocketChannel, Selector y SSLEngine.
+ * Acepta las conexiones en el hilo que lo arranca y las reparte entre un numero fijo de bucles de eventos,
+ * de forma que miles de clientes inactivos no necesitan un hilo cada uno.
+ * Las solicitudes se procesan en un pool de trabajadores para no bloquear los bucles de eventos (bcrypt, JWT, BD).
+ */
+public class NioServer {
+    private final Logger logger = LoggerFactory.getLogger(NioServer.class);
+    private final int port;
+    private final RequestProcessor requestProcessor;
+    private final AtomicLong clientNumber;
+    private final NioEventLoop[] eventLoops;
+    private final ExecutorService workers;
+    private final SSLContext sslContext;
+
+    /**
+     * Constructor de la clase NioServer.
+     *
+     * @param port El puerto en el que escucha el servidor.
+     * @param eventLoopCount El numero de bucles de eventos de E/S.
+     * @param workerCount El numero de hilos que procesan las solicitudes.
+     * @param requestProcessor El procesador de solicitudes compartido por todos los clientes.
+     * @param clientNumber El contador de clientes conectados.
+     * @throws IOException Si no se pueden abrir los selectores o no se puede obtener el contexto SSL.
+     */
+    public NioServer(int port, int eventLoopCount, int workerCount, RequestProcessor requestProcessor, AtomicLong clientNumber) throws IOException {
+        this.port = port;
+        this.requestProcessor = requestProcessor;
+        this.clientNumber = clientNumber;
+        this.workers = Executors.newFixedThreadPool(workerCount);
+        this.eventLoops = new NioEventLoop[eventLoopCount];
+        for (int i = 0; i < eventLoopCount; i++) {
+            eventLoops[i] = new NioEventLoop(i);
+        }
+        try {
+            this.sslContext = SSLContext.getDefault();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IOException("No se ha podido obtener el contexto SSL", e);
+        }
+    }
+
+    /**
+     * Arranca los bucles de eventos y acepta conexiones de forma indefinida.
+     *
+     * @throws IOException Si ocurre un error al abrir o escuchar en el puerto.
+     */
+    public void start() throws IOException {
+        for (NioEventLoop eventLoop : eventLoops) {
+            eventLoop.start();
+        }
+
+        try (ServerSocketChannel serverChannel = ServerSocketChannel.open()) {
+            serverChannel.bind(new InetSocketAddress(port));
+            logger.debug("🚀 Servidor NIO escuchando en el puerto " + port + " con " + eventLoops.length + " bucles de eventos");
+
+            int next = 0;
+            while (true) {
+                SocketChannel channel = serverChannel.accept();
+                channel.configureBlocking(false);
+                channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+
+                SSLEngine engine = sslContext.createSSLEngine();
+                engine.setUseClientMode(false);
+
+                NioEventLoop eventLoop = eventLoops[next];
+                next = (next + 1) % eventLoops.length;
+                eventLoop.register(new NioConnection(channel, engine, clientNumber.incrementAndGet(), requestProcessor, workers, eventLoop));
+            }
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package org.develop.repositories.funkos;
+
+import io.r2dbc.spi.Connection;
+import io.r2dbc.spi.ConnectionFactory;
+import org.develop.commons.model.mainUse.MyIDGenerator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import reactor.core.publisher.Mono;
+
+/**
+ * Origen de bloques de identificadores myid respaldado por la tabla ID_SEQUENCE de la base de datos.
+ * Cada reserva avanza el siguiente valor libre en una sola sentencia y se confirma al momento, fuera de
+ * cualquier transaccion de las escrituras, de modo que un bloque reservado nunca se vuelve a entregar,
+ * aunque la escritura que lo pidio se deshaga.
+ */
+class FunkoIdBlockSource implements MyIDGenerator.BlockSource {
+    private static final String SEQUENCE = "FUNKO_MYID";
+
+    private final Logger logger = LoggerFactory.getLogger(FunkoIdBlockSource.class);
+    private final ConnectionFactory connections;
+
+    /**
+     * Constructor de la clase FunkoIdBlockSource.
+     *
+     * @param connections La fabrica de conexiones de escritura.
+     */
+    FunkoIdBlockSource(ConnectionFactory connections) {
+        this.connections = connections;
+    }
+
+    /**
+     * Situa el siguiente valor libre justo despues del mayor myid guardado en la tabla FUNKO, para que al
+     * arrancar sobre una base de datos persistente no se repitan identificadores. La secuencia nunca retrocede:
+     * si ya existe se queda con el mayor de los dos valores, porque puede haber bloques reservados por otra
+     * instancia o por otro proceso que aun no se han guardado en FUNKO.
+     *
+     * @return Un mono (Mono) que se completa cuando la secuencia queda inicializada.
+     */
+    Mono<Void> seed() {
+        String sql = "MERGE INTO ID_SEQUENCE s USING (SELECT CAST(? AS VARCHAR(50)) AS name, COALESCE(MAX(myid), 0) + 1 AS next_value FROM FUNKO) f "
+                + "ON s.name = f.name "
+                + "WHEN MATCHED THEN UPDATE SET s.next_value = GREATEST(s.next_value, f.next_value) "
+                + "WHEN NOT MATCHED THEN INSERT (name, next_value) VALUES (f.name, f.next_value)";
+        return Mono.usingWhen(
+                connections.create(),
+                connection -> Mono.from(connection.createStatement(sql)
+                        .bind(0, SEQUENCE)
+                        .execute()
+                ).flatMap(result -> Mono.from(result.getRowsUpdated())),
+                Connection::close
+        ).then();
+    }
+
+    /**
+     * Reserva un bloque de identificadores avanzando el siguiente valor libre. Si la secuencia aun no existe,
+     * por ejemplo porque se ha recreado la tabla, se inicializa antes.
+     *
+     * @param size El numero de identificadores del bloque.
+     * @return Un mono (Mono) con el primer identificador del bloque.
+     */
+    @Override
+    public Mono<Long> reserve(int size) {
+        logger.debug("Reserving block of " + size + " ids");
+        return advance(size).switchIfEmpty(seed().then(Mono.defer(() -> advance(size))));
+    }
+
+    private Mono<Long> advance(int size) {
+        String sql = "SELECT next_value FROM FINAL TABLE (UPDATE ID_SEQUENCE SET next_value = next_value + ? WHERE name = ?)";
+        return Mono.usingWhen(
+                connections.create(),
+                connection -> Mono.from(connection.createStatement(sql)
+                        .bind(0, (long) size)
+                        .bind(1, SEQUENCE)
+                        .execute()
+                ).flatMap(result -> Mono.from(result.map((row, metadata) -> row.get(0, Long.class) - size))),
+                Connection::close
+        );
+    }
+}
@@ -1,10 +1,13 @@
 package org.develop.repositories.funkos;
 
 import org.develop.commons.model.mainUse.Funko;
+import org.develop.commons.model.mainUse.Modelo;
 import org.develop.repositories.crud.CRUDRepository;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.time.LocalDate;
+import java.util.List;
 import java.util.UUID;
 
 /**
@@ -22,6 +25,14 @@ public interface FunkoRepository extends CRUDRepository<Funko, Integer> {
      */
     Flux<Funko> findByName(String name);
 
+    /**
+     * Busca los Funkos con los ids indicados con el menor numero de consultas posible.
+     *
+     * @param ids Los ids de los Funkos a buscar.
+     * @return Un flujo (Flux) con los Funkos encontrados, ordenados por id. Los ids que no existen se omiten.
+     */
+    Flux<Funko> findAllById(List<Integer> ids);
+
     /**
      * Busca un Funko por su UUID.
      *
@@ -29,4 +40,46 @@ public interface FunkoRepository extends CRUDRepository<Funko, Integer> {
      * @return Un mono (Mono) que representa el Funko encontrado por UUID.
      */
     Mono<Funko> findByUuid(UUID uuid);
+
+    /**
+     * Guarda un conjunto de Funkos en lotes, cada uno en una unica transaccion.
+     *
+     * @param funkos Los Funkos que se van a guardar.
+     * @return Un flujo (Flux) con los Funkos guardados, en el mismo orden en que se recibieron.
+     */
+    Flux<Funko> saveAll(Flux<Funko> funkos);
+
+    /**
+     * Elimina un Funko por su ID y devuelve el Funko eliminado.
+     *
+     * @param id El ID del Funko a eliminar.
+     * @return Un mono (Mono) con el Funko eliminado, o vacio si no existia.
+     */
+    Mono<Funko> deleteByIdReturning(Integer id);
+
+    /**
+     * Busca Funkos por modelo.
+     *
+     * @param modelo El modelo de los Funkos a buscar.
+     * @return Un flujo (Flux) de Funkos del modelo especificado, ordenados por id.
+     */
+    Flux<Funko> findByModelo(Modelo modelo);
+
+    /**
+     * Busca Funkos lanzados en un rango de fechas.
+     *
+     * @param from La fecha inicial del rango, incluida.
+     * @param to La fecha final del rango, excluida.
+     * @return Un flujo (Flux) de Funkos lanzados en el rango, ordenados por id.
+     */
+    Flux<Funko> findByLaunchDateBetween(LocalDate from, LocalDate to);
+
+    /**
+     * Busca una pagina de Funkos ordenados por id, a partir de un cursor.
+     *
+     * @param afterId Se devuelven los Funkos con id estrictamente mayor que este.
+     * @param limit El numero maximo de Funkos a devolver.
+     * @return Un flujo (Flux) con los Funkos de la pagina, ordenados por id.
+     */
+    Flux<Funko> findPage(int afterId, int limit);
 }
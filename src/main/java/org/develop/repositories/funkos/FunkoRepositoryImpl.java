@@ -1,11 +1,13 @@
 package org.develop.repositories.funkos;
 
-import io.r2dbc.pool.ConnectionPool;
 import io.r2dbc.spi.Connection;
+import io.r2dbc.spi.ConnectionFactory;
 import io.r2dbc.spi.Result;
+import io.r2dbc.spi.Statement;
 import org.develop.commons.model.mainUse.Funko;
 import org.develop.commons.model.mainUse.Modelo;
 import org.develop.commons.model.mainUse.MyIDGenerator;
+import org.develop.commons.model.mainUse.MyUUIDGenerator;
 import org.develop.services.database.DatabaseManager;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -14,7 +16,10 @@ import reactor.core.publisher.Mono;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.List;
 import java.util.UUID;
+import java.util.function.Function;
 
 /**
  * Implementacion de la interfaz FunkoRepository que proporciona metodos para interactuar con la base de datos
@@ -22,15 +27,28 @@ import java.util.UUID;
  */
 public class FunkoRepositoryImpl implements FunkoRepository{
 
+    private static final int SAVE_BATCH_SIZE = 500;
+    private static final int ID_CHUNK_SIZE = 500;
+
     private static FunkoRepositoryImpl instance;
     private final Logger logger = LoggerFactory.getLogger(FunkoRepositoryImpl.class);
 
-    private final ConnectionPool connectionFactory;
+    private final ConnectionFactory readConnections;
+    private final ConnectionFactory writeConnections;
+    private final WriteCoalescer writeCoalescer;
     private final MyIDGenerator idGenerator;
+    private final MyUUIDGenerator uuidGenerator = MyUUIDGenerator.getInstance();
 
     private FunkoRepositoryImpl(DatabaseManager databaseManager,MyIDGenerator idGenerator){
-        this.connectionFactory = databaseManager.getConnectionPool();
+        this.readConnections = databaseManager.getReadConnectionFactory();
+        this.writeConnections = databaseManager.getWriteConnectionFactory();
+        this.writeCoalescer = databaseManager.isGroupCommitEnabled()
+                ? new WriteCoalescer(writeConnections, databaseManager.getGroupCommitMaxBatchSize(), databaseManager.getGroupCommitWindow())
+                : null;
         this.idGenerator = idGenerator;
+        FunkoIdBlockSource idBlockSource = new FunkoIdBlockSource(writeConnections);
+        idBlockSource.seed().block();
+        idGenerator.useBlockSource(idBlockSource);
     }
 
     /**
@@ -57,23 +75,11 @@ public class FunkoRepositoryImpl implements FunkoRepository{
     @Override
     public Flux<Funko> findAll() {
         logger.debug("Buscando todos los alumnos");
-        String sql = "SELECT * FROM FUNKO";
+        String sql = "SELECT " + FunkoRowMapper.COLUMNS + " FROM FUNKO";
         return Flux.usingWhen(
-                connectionFactory.create(),
+                readConnections.create(),
                 connection -> Flux.from(connection.createStatement(sql).execute())
-                        .flatMap(result -> result.map((row, rowMetadata) ->
-                                Funko.builder()
-                                        .id(row.get("id",Integer.class))
-                                        .myId(row.get("myid",Long.class))
-                                        .name(row.get("name",String.class))
-                                        .uuid(row.get("uuid", UUID.class))
-                                        .modelo(Modelo.valueOf(row.get("modelo", Object.class).toString()))
-                                        .precio(row.get("precio", Double.class))
-                                        .fecha_lanzamiento(row.get("fecha_lanzamiento", LocalDate.class))
-                                        .created_at(row.get("created_at", LocalDateTime.class))
-                                        .updated_at(row.get("updated_at", LocalDateTime.class))
-                                        .build()
-                        )),
+                        .flatMap(result -> result.map(FunkoRowMapper::map)),
                 Connection::close
         );
     }
@@ -87,31 +93,52 @@ public class FunkoRepositoryImpl implements FunkoRepository{
     @Override
     public Mono<Funko> findById(Integer id) {
         logger.debug("Buscando Funko por ID");
-        String sql = "SELECT * FROM FUNKO WHERE id = ?";
+        String sql = "SELECT " + FunkoRowMapper.COLUMNS + " FROM FUNKO WHERE id = ?";
         return Mono.usingWhen(
-                connectionFactory.create(),
+                readConnections.create(),
                 connection -> Mono.from(connection.createStatement(sql)
                         .bind(0, id)
                         .execute()
-                ).flatMap(result -> Mono.from(result.map((row, rowMetadata) ->
-                        Funko.builder()
-                                        .id(row.get("id",Integer.class))
-                                        .myId(row.get("myid",Long.class))
-                                        .name(row.get("name",String.class))
-                                        .uuid(row.get("uuid", UUID.class))
-                                        .modelo(Modelo.valueOf(row.get("modelo", Object.class).toString()))
-                                        .precio(row.get("precio",Double.class))
-                                        .fecha_lanzamiento(row.get("fecha_lanzamiento", LocalDate.class))
-                                        .created_at(row.get("created_at", LocalDateTime.class))
-                                        .updated_at(row.get("updated_at", LocalDateTime.class))
-                                        .build()
-                ))),
+                ).flatMap(result -> Mono.from(result.map(FunkoRowMapper::map))),
+                Connection::close
+        );
+    }
+
+    /**
+     * Busca los Funkos con los ids indicados con una consulta WHERE id IN (...) por cada bloque de
+     * ID_CHUNK_SIZE ids. Los bloques se consultan de uno en uno, asi que una busqueda amplia ocupa una sola
+     * conexion de lectura cada vez en lugar de una por Funko.
+     *
+     * @param ids Los ids de los Funkos a buscar.
+     * @return Un flujo (Flux) con los Funkos encontrados, ordenados por id dentro de cada bloque.
+     */
+    @Override
+    public Flux<Funko> findAllById(List<Integer> ids) {
+        logger.debug("Buscando " + ids.size() + " Funkos por ID");
+        return Flux.range(0, (ids.size() + ID_CHUNK_SIZE - 1) / ID_CHUNK_SIZE)
+                .concatMap(chunk -> findChunkById(ids.subList(chunk * ID_CHUNK_SIZE, Math.min(ids.size(), (chunk + 1) * ID_CHUNK_SIZE))));
+    }
+
+    private Flux<Funko> findChunkById(List<Integer> ids) {
+        String sql = "SELECT " + FunkoRowMapper.COLUMNS + " FROM FUNKO WHERE id IN (" + String.join(",", Collections.nCopies(ids.size(), "?")) + ") ORDER BY id";
+        return Flux.usingWhen(
+                readConnections.create(),
+                connection -> {
+                    Statement statement = connection.createStatement(sql);
+                    for (int i = 0; i < ids.size(); i++) {
+                        statement.bind(i, ids.get(i));
+                    }
+                    return Flux.from(statement.execute())
+                            .flatMap(result -> result.map(FunkoRowMapper::map));
+                },
                 Connection::close
         );
     }
 
     /**
-     * Guarda un Funko en la base de datos y devuelve el Funko guardado.
+     * Guarda un Funko en la base de datos y devuelve la fila insertada, con el id y las fechas generadas por la
+     * base de datos. La insercion y la lectura de la fila se hacen en una sola sentencia con FINAL TABLE.
+     * Si el Funko no trae uuid se le asigna uno de version 7, ordenado por tiempo.
      *
      * @param funko El Funko que se va a guardar en la base de datos.
      * @return Un mono (Mono) que representa el Funko guardado.
@@ -119,44 +146,126 @@ public class FunkoRepositoryImpl implements FunkoRepository{
     @Override
     public Mono<Funko> save(Funko funko) {
         logger.debug("Saving Funko on DB");
-        String sql = "INSERT INTO FUNKO (myid,uuid,name,modelo,precio,fecha_lanzamiento) VALUES (?,?,?,?,?,?)";
-        return Mono.usingWhen(
-                connectionFactory.create(),
-                connection -> Mono.from(connection.createStatement(sql)
-                        .bind(0, idGenerator.getIDandIncrement())
-                        .bind(1, funko.getUuid())
+        String sql = "SELECT " + FunkoRowMapper.COLUMNS + " FROM FINAL TABLE (INSERT INTO FUNKO (myid,uuid,name,modelo,precio,fecha_lanzamiento) VALUES (?,?,?,?,?,?))";
+        return write(connection -> idGenerator.nextId()
+                .flatMap(myId -> Mono.from(connection.createStatement(sql)
+                        .bind(0, myId)
+                        .bind(1, funko.getUuid() != null ? funko.getUuid() : uuidGenerator.generate())
                         .bind(2, funko.getName())
                         .bind(3,funko.getModelo().toString())
                         .bind(4,funko.getPrecio())
                         .bind(5,funko.getFecha_lanzamiento())
                         .execute()
-        ).then(Mono.just(funko)),
-        Connection::close
-        );
+                ))
+                .flatMap(result -> Mono.from(result.map(FunkoRowMapper::map))));
+    }
+
+    /**
+     * Guarda un conjunto de Funkos en lotes de SAVE_BATCH_SIZE. Cada lote usa una sola conexion, una sola sentencia
+     * INSERT con un juego de parametros por Funko y una sola transaccion, en lugar de una conexion y un commit por Funko.
+     * Si un lote falla se deshace entero y el flujo termina con el error; los lotes anteriores quedan guardados.
+     * Cada fila insertada se lee en la misma sentencia con FINAL TABLE, con el id y las fechas generadas.
+     *
+     * @param funkos Los Funkos que se van a guardar.
+     * @return Un flujo (Flux) con las filas guardadas, en el mismo orden en que se recibieron.
+     */
+    @Override
+    public Flux<Funko> saveAll(Flux<Funko> funkos) {
+        String sql = "SELECT " + FunkoRowMapper.COLUMNS + " FROM FINAL TABLE (INSERT INTO FUNKO (myid,uuid,name,modelo,precio,fecha_lanzamiento) VALUES (?,?,?,?,?,?))";
+        return funkos.concatMap(funko -> idGenerator.nextId().map(myId -> {
+                    funko.setMyId(myId);
+                    return funko;
+                }))
+                .buffer(SAVE_BATCH_SIZE)
+                .concatMap(batch -> Flux.usingWhen(
+                        writeConnections.create(),
+                        connection -> {
+                            logger.debug("Saving batch of " + batch.size() + " Funkos on DB");
+                            Statement statement = connection.createStatement(sql);
+                            for (int i = 0; i < batch.size(); i++) {
+                                Funko funko = batch.get(i);
+                                if (funko.getUuid() == null) {
+                                    funko.setUuid(uuidGenerator.generate());
+                                }
+                                if (i > 0) {
+                                    statement.add();
+                                }
+                                statement.bind(0, funko.getMyId())
+                                        .bind(1, funko.getUuid())
+                                        .bind(2, funko.getName())
+                                        .bind(3, funko.getModelo().toString())
+                                        .bind(4, funko.getPrecio())
+                                        .bind(5, funko.getFecha_lanzamiento());
+                            }
+                            return Mono.from(connection.beginTransaction())
+                                    .thenMany(statement.execute())
+                                    .concatMap(result -> result.map(FunkoRowMapper::map))
+                                    .collectList()
+                                    .flatMapMany(saved -> Mono.from(connection.commitTransaction())
+                                            .thenMany(Flux.fromIterable(saved)));
+                        },
+                        Connection::close,
+                        (connection, error) -> Mono.from(connection.rollbackTransaction())
+                                .onErrorResume(e -> Mono.empty())
+                                .then(Mono.from(connection.close())),
+                        Connection::close
+                ));
     }
 
     /**
-         * Actualiza un Funko en la base de datos con los nuevos valores proporcionados y devuelve el Funko actualizado.
+         * Actualiza un Funko en la base de datos con los nuevos valores proporcionados y devuelve la fila actualizada,
+     * leida en la misma sentencia con FINAL TABLE.
      *
      * @param funko El Funko con los valores actualizados que se va a guardar en la base de datos.
-     * @return Un mono (Mono) que representa el Funko actualizado.
+     * @return Un mono (Mono) que representa el Funko actualizado, o vacio si no existe un Funko con su id.
      */
     @Override
     public Mono<Funko> update(Funko funko) {
         logger.debug("Updating Funko on DB");
-        String sql = "UPDATE FUNKO SET name = ? , modelo = ?, precio = ?, updated_at = ? WHERE id = ?";
+        String sql = "SELECT " + FunkoRowMapper.COLUMNS + " FROM FINAL TABLE (UPDATE FUNKO SET name = ? , modelo = ?, precio = ?, fecha_lanzamiento = ?, updated_at = ? WHERE id = ?)";
         funko.setUpdated_at(LocalDateTime.now());
-        return Mono.usingWhen(
-                connectionFactory.create(),
-                connection -> Mono.from(connection.createStatement(sql)
+        return write(connection -> Mono.from(connection.createStatement(sql)
                         .bind(0,funko.getName())
                         .bind(1,funko.getModelo().toString())
                         .bind(2,funko.getPrecio())
-                        .bind(3,funko.getUpdated_at())
-                        .bind(4,funko.getId())
+                        .bind(3,funko.getFecha_lanzamiento())
+                        .bind(4,funko.getUpdated_at())
+                        .bind(5,funko.getId())
+                        .execute()
+                ).flatMap(result -> Mono.from(result.map(FunkoRowMapper::map))));
+    }
+
+    /**
+     * Elimina un Funko de la base de datos por su ID y devuelve la fila eliminada, leida en la misma sentencia
+     * con OLD TABLE, sin consultarla antes.
+     *
+     * @param id El ID del Funko que se va a eliminar de la base de datos.
+     * @return Un mono (Mono) que representa el Funko eliminado, o vacio si no existia.
+     */
+    @Override
+    public Mono<Funko> deleteByIdReturning(Integer id) {
+        logger.debug("Deleting Funko On DB");
+        String sql = "SELECT " + FunkoRowMapper.COLUMNS + " FROM OLD TABLE (DELETE FROM FUNKO WHERE id = ?)";
+        return write(connection -> Mono.from(connection.createStatement(sql)
+                        .bind(0,id)
                         .execute()
+                ).flatMap(result -> Mono.from(result.map(FunkoRowMapper::map))));
+    }
 
-                ).then(Mono.just(funko)),
+    /**
+     * Ejecuta una escritura que devuelve la fila afectada. Si esta activado el group commit se encola para
+     * confirmarla junto con las escrituras concurrentes; si no, se ejecuta en su propia conexion con autocommit.
+     *
+     * @param mutation La escritura, que se ejecuta sobre la conexion que se le pasa.
+     * @return Un mono (Mono) con la fila afectada, o vacio si no habia fila.
+     */
+    private Mono<Funko> write(Function<Connection, Mono<Funko>> mutation) {
+        if (writeCoalescer != null) {
+            return writeCoalescer.submit(mutation);
+        }
+        return Mono.usingWhen(
+                writeConnections.create(),
+                mutation,
                 Connection::close
         );
     }
@@ -172,7 +281,7 @@ public class FunkoRepositoryImpl implements FunkoRepository{
         logger.debug("Deleting Funko On DB");
         String sql = "DELETE FROM FUNKO WHERE id = ?";
         return Mono.usingWhen(
-                connectionFactory.create(),
+                writeConnections.create(),
                 connection -> Mono.from(connection.createStatement(sql)
                         .bind(0,id)
                         .execute()
@@ -192,7 +301,7 @@ public class FunkoRepositoryImpl implements FunkoRepository{
         logger.debug("Deleting All Funkos On DB");
         String sql = "DELETE FROM FUNKO";
         return Mono.usingWhen(
-                connectionFactory.create(),
+                writeConnections.create(),
                 connection -> Mono.from(connection.createStatement(sql)
                            .execute()
                         ).then(),
@@ -209,25 +318,80 @@ public class FunkoRepositoryImpl implements FunkoRepository{
     @Override
     public Flux<Funko> findByName(String name) {
         logger.debug("Finding Funko From DB with Name: " + name);
-        String sql = "SELECT * FROM FUNKO WHERE name like ?";
+        String sql = "SELECT " + FunkoRowMapper.COLUMNS + " FROM FUNKO WHERE name like ?";
         return Flux.usingWhen(
-                connectionFactory.create(),
+                readConnections.create(),
                 connection -> Flux.from(connection.createStatement(sql)
                         .bind(0, "%"+name+"%")
                         .execute()
-                ).flatMap(result -> result.map((row,rowMetaData)->
-                        Funko.builder()
-                                .id(row.get("id",Integer.class))
-                                .myId(row.get("myid",Long.class))
-                                .uuid(row.get("uuid", UUID.class))
-                                .name(row.get("name",String.class))
-                                .modelo(Modelo.valueOf(row.get("modelo", Object.class).toString()))
-                                .precio(row.get("precio", Double.class))
-                                .fecha_lanzamiento(row.get("fecha_lanzamiento",LocalDate.class))
-                                .created_at(row.get("created_at",LocalDateTime.class))
-                                .updated_at(row.get("updated_at", LocalDateTime.class))
-                                .build()
-                )),Connection::close
+                ).flatMap(result -> result.map(FunkoRowMapper::map)),Connection::close
+        );
+    }
+
+    /**
+     * Busca Funkos por modelo. El filtro se resuelve en la base de datos con el indice sobre modelo,
+     * sin leer ni mapear el resto del catalogo.
+     *
+     * @param modelo El modelo de los Funkos a buscar.
+     * @return Un flujo (Flux) de Funkos del modelo especificado, ordenados por id.
+     */
+    @Override
+    public Flux<Funko> findByModelo(Modelo modelo) {
+        logger.debug("Buscando Funkos con modelo: " + modelo);
+        String sql = "SELECT " + FunkoRowMapper.COLUMNS + " FROM FUNKO WHERE modelo = ? ORDER BY id";
+        return Flux.usingWhen(
+                readConnections.create(),
+                connection -> Flux.from(connection.createStatement(sql)
+                        .bind(0, modelo.toString())
+                        .execute()
+                ).flatMap(result -> result.map(FunkoRowMapper::map)),
+                Connection::close
+        );
+    }
+
+    /**
+     * Busca Funkos lanzados en un rango de fechas. Se compara la columna directamente con los limites del rango,
+     * sin aplicarle funciones, para que la base de datos pueda usar el indice sobre fecha_lanzamiento.
+     *
+     * @param from La fecha inicial del rango, incluida.
+     * @param to La fecha final del rango, excluida.
+     * @return Un flujo (Flux) de Funkos lanzados en el rango, ordenados por id.
+     */
+    @Override
+    public Flux<Funko> findByLaunchDateBetween(LocalDate from, LocalDate to) {
+        logger.debug("Buscando Funkos lanzados entre " + from + " y " + to);
+        String sql = "SELECT " + FunkoRowMapper.COLUMNS + " FROM FUNKO WHERE fecha_lanzamiento >= ? AND fecha_lanzamiento < ? ORDER BY id";
+        return Flux.usingWhen(
+                readConnections.create(),
+                connection -> Flux.from(connection.createStatement(sql)
+                        .bind(0, from)
+                        .bind(1, to)
+                        .execute()
+                ).flatMap(result -> result.map(FunkoRowMapper::map)),
+                Connection::close
+        );
+    }
+
+    /**
+     * Busca una pagina de Funkos ordenados por id a partir de un cursor. Al filtrar por la clave primaria
+     * en lugar de usar OFFSET, la base de datos no recorre las filas de las paginas anteriores.
+     *
+     * @param afterId Se devuelven los Funkos con id estrictamente mayor que este.
+     * @param limit El numero maximo de Funkos a devolver.
+     * @return Un flujo (Flux) con los Funkos de la pagina, ordenados por id.
+     */
+    @Override
+    public Flux<Funko> findPage(int afterId, int limit) {
+        logger.debug("Buscando pagina de Funkos despues del id: " + afterId);
+        String sql = "SELECT " + FunkoRowMapper.COLUMNS + " FROM FUNKO WHERE id > ? ORDER BY id LIMIT ?";
+        return Flux.usingWhen(
+                readConnections.create(),
+                connection -> Flux.from(connection.createStatement(sql)
+                        .bind(0, afterId)
+                        .bind(1, limit)
+                        .execute()
+                ).flatMap(result -> result.map(FunkoRowMapper::map)),
+                Connection::close
         );
     }
 
@@ -240,25 +404,13 @@ public class FunkoRepositoryImpl implements FunkoRepository{
     @Override
     public Mono<Funko> findByUuid(UUID uuid) {
         logger.debug("Buscando funko por uuid: " + uuid);
-        String sql = "SELECT * FROM FUNKO WHERE uuid = ?";
+        String sql = "SELECT " + FunkoRowMapper.COLUMNS + " FROM FUNKO WHERE uuid = ?";
         return Mono.usingWhen(
-                connectionFactory.create(),
+                readConnections.create(),
                 connection -> Mono.from(connection.createStatement(sql)
                         .bind(0, uuid)
                         .execute()
-                ).flatMap(result -> Mono.from(result.map((row, rowMetadata) ->
-                        Funko.builder()
-                                        .id(row.get("id",Integer.class))
-                                        .myId(row.get("myid",Long.class))
-                                        .name(row.get("name",String.class))
-                                        .uuid(row.get("uuid", UUID.class))
-                                        .modelo(Modelo.valueOf(row.get("modelo", Object.class).toString()))
-                                        .precio(row.get("precio",Double.class))
-                                        .fecha_lanzamiento(row.get("fecha_lanzamiento", LocalDate.class))
-                                        .created_at(row.get("created_at", LocalDateTime.class))
-                                        .updated_at(row.get("updated_at", LocalDateTime.class))
-                                        .build()
-                ))),
+                ).flatMap(result -> Mono.from(result.map(FunkoRowMapper::map))),
                 Connection::close
         );
     }
@@ -0,0 +1,56 @@
+package org.develop.repositories.funkos;
+
+import io.r2dbc.spi.Row;
+import io.r2dbc.spi.RowMetadata;
+import org.develop.commons.model.mainUse.Funko;
+import org.develop.commons.model.mainUse.Modelo;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Conversion de las filas de la tabla FUNKO en objetos Funko, compartida por todas las consultas del repositorio.
+ * Las consultas seleccionan siempre las columnas de {@link #COLUMNS} en ese orden, de forma que cada valor se lee
+ * por su posicion en lugar de buscar la columna por nombre en cada fila.
+ */
+final class FunkoRowMapper {
+    /**
+     * Lista de columnas que deben seleccionar las consultas cuyo resultado se convierte con {@link #map}.
+     */
+    static final String COLUMNS = "id, myid, uuid, name, modelo, precio, fecha_lanzamiento, created_at, updated_at";
+
+    private static final int ID = 0;
+    private static final int MY_ID = 1;
+    private static final int UUID_COLUMN = 2;
+    private static final int NAME = 3;
+    private static final int MODELO = 4;
+    private static final int PRECIO = 5;
+    private static final int FECHA_LANZAMIENTO = 6;
+    private static final int CREATED_AT = 7;
+    private static final int UPDATED_AT = 8;
+
+    private FunkoRowMapper() {
+    }
+
+    /**
+     * Convierte una fila con las columnas de {@link #COLUMNS} en un Funko.
+     *
+     * @param row La fila.
+     * @param metadata Los metadatos de la fila.
+     * @return El Funko leido de la fila.
+     */
+    static Funko map(Row row, RowMetadata metadata) {
+        return Funko.builder()
+                .id(row.get(ID, Integer.class))
+                .myId(row.get(MY_ID, Long.class))
+                .uuid(row.get(UUID_COLUMN, UUID.class))
+                .name(row.get(NAME, String.class))
+                .modelo(Modelo.valueOf(row.get(MODELO, String.class)))
+                .precio(row.get(PRECIO, Double.class))
+                .fecha_lanzamiento(row.get(FECHA_LANZAMIENTO, LocalDate.class))
+                .created_at(row.get(CREATED_AT, LocalDateTime.class))
+                .updated_at(row.get(UPDATED_AT, LocalDateTime.class))
+                .build();
+    }
+}
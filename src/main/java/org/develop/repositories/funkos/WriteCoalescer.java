@@ -0,0 +1,170 @@
+package org.develop.repositories.funkos;
+
+import io.r2dbc.spi.Connection;
+import io.r2dbc.spi.ConnectionFactory;
+import org.develop.commons.model.mainUse.Funko;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoSink;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+
+/**
+ * Agrupa las escrituras concurrentes de todos los clientes en transacciones compartidas (group commit).
+ * Solo hay un lote en curso a la vez: mientras se confirma, las escrituras que llegan se acumulan y forman el
+ * siguiente lote, hasta un maximo por lote. Cada lote se ejecuta en orden sobre una sola conexion y se confirma
+ * con un unico commit, y cada solicitante recibe su resultado cuando se confirma su lote. Con poca carga una
+ * escritura se confirma sola y sin esperas; con mucha, los lotes crecen y el numero de escrituras por segundo
+ * no queda limitado por el numero de conexiones del pool de escritura.
+ * Si un lote falla se deshace y sus escrituras se repiten una a una, para que el error solo le llegue
+ * a la escritura que lo provoca.
+ * Los resultados se entregan en otro hilo y despues de liberar el lote, asi que un solicitante lento, por ejemplo
+ * un cliente que tarda en leer su respuesta, no retrasa las escrituras del resto. Una escritura cancelada antes de
+ * entrar en un lote no llega a ejecutarse.
+ */
+class WriteCoalescer {
+    private final Logger logger = LoggerFactory.getLogger(WriteCoalescer.class);
+    private final Queue<PendingWrite> pending = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean committing = new AtomicBoolean(false);
+    private final Scheduler scheduler = Schedulers.newSingle("group-commit", true);
+    private final Scheduler delivery = Schedulers.boundedElastic();
+    private final ConnectionFactory connections;
+    private final int maxBatchSize;
+    private final Duration window;
+
+    /**
+     * Constructor de la clase WriteCoalescer.
+     *
+     * @param connections La fabrica de conexiones de escritura.
+     * @param maxBatchSize El numero maximo de escrituras por transaccion.
+     * @param window El tiempo que se espera antes de formar cada lote para que se unan mas escrituras, o cero para no esperar.
+     */
+    WriteCoalescer(ConnectionFactory connections, int maxBatchSize, Duration window) {
+        this.connections = connections;
+        this.maxBatchSize = maxBatchSize;
+        this.window = window;
+    }
+
+    /**
+     * Encola una escritura para el siguiente lote.
+     *
+     * @param mutation La escritura, que se ejecuta sobre la conexion del lote y devuelve la fila afectada.
+     * @return Un mono (Mono) con la fila afectada, o vacio si no habia fila, que se completa al confirmar el lote.
+     */
+    Mono<Funko> submit(Function<Connection, Mono<Funko>> mutation) {
+        return Mono.create(sink -> {
+            PendingWrite write = new PendingWrite(mutation, sink, new AtomicBoolean(false));
+            sink.onCancel(() -> {
+                write.cancelled().set(true);
+                pending.remove(write);
+            });
+            pending.add(write);
+            drain();
+        });
+    }
+
+    /**
+     * Si no hay ningun lote en curso, forma uno con las escrituras pendientes y lo confirma en el hilo del
+     * group commit. Al terminar libera el lote, vuelve a comprobar la cola, de forma que las escrituras que
+     * llegaron mientras tanto forman el siguiente lote, y solo entonces entrega los resultados, cada uno en su
+     * propia tarea.
+     */
+    private void drain() {
+        if (!pending.isEmpty() && committing.compareAndSet(false, true)) {
+            Mono.delay(window, scheduler)
+                    .then(Mono.defer(this::commitPending))
+                    .onErrorResume(error -> {
+                        logger.error("Error in group commit: " + error.getMessage());
+                        return Mono.just(List.of());
+                    })
+                    .subscribe(completions -> {
+                        committing.set(false);
+                        drain();
+                        completions.forEach(delivery::schedule);
+                    });
+        }
+    }
+
+    /**
+     * Saca de la cola hasta maxBatchSize escrituras no canceladas y las confirma como un lote.
+     *
+     * @return Un mono (Mono) con las entregas de los resultados del lote.
+     */
+    private Mono<List<Runnable>> commitPending() {
+        List<PendingWrite> batch = new ArrayList<>();
+        PendingWrite write;
+        while (batch.size() < maxBatchSize && (write = pending.poll()) != null) {
+            if (!write.cancelled().get()) {
+                batch.add(write);
+            }
+        }
+        return batch.isEmpty() ? Mono.just(List.of()) : commit(batch);
+    }
+
+    /**
+     * Ejecuta un lote de escrituras en una transaccion y, al confirmarla, prepara la entrega del resultado a cada
+     * solicitante. Las entregas no se ejecutan aqui, sino en drain, cuando el lote ya se ha liberado.
+     *
+     * @param batch Las escrituras del lote, en orden de llegada.
+     * @return Un mono (Mono) con las entregas de los resultados del lote.
+     */
+    private Mono<List<Runnable>> commit(List<PendingWrite> batch) {
+        logger.debug("Committing batch of " + batch.size() + " writes");
+        return Mono.usingWhen(
+                        connections.create(),
+                        connection -> Mono.from(connection.beginTransaction())
+                                .thenMany(Flux.fromIterable(batch)
+                                        .concatMap(write -> write.mutation().apply(connection)
+                                                .map(Optional::of)
+                                                .defaultIfEmpty(Optional.empty())))
+                                .collectList()
+                                .flatMap(results -> Mono.from(connection.commitTransaction()).thenReturn(results)),
+                        Connection::close,
+                        (connection, error) -> Mono.from(connection.rollbackTransaction())
+                                .onErrorResume(e -> Mono.empty())
+                                .then(Mono.from(connection.close())),
+                        Connection::close
+                )
+                .map(results -> {
+                    List<Runnable> completions = new ArrayList<>(batch.size());
+                    for (int i = 0; i < batch.size(); i++) {
+                        MonoSink<Funko> sink = batch.get(i).sink();
+                        Optional<Funko> result = results.get(i);
+                        completions.add(() -> result.ifPresentOrElse(sink::success, sink::success));
+                    }
+                    return completions;
+                })
+                .onErrorResume(error -> {
+                    if (batch.size() == 1) {
+                        MonoSink<Funko> sink = batch.get(0).sink();
+                        return Mono.just(List.<Runnable>of(() -> sink.error(error)));
+                    }
+                    logger.debug("Batch failed, retrying its writes one by one: " + error.getMessage());
+                    return Flux.fromIterable(batch)
+                            .concatMap(write -> commit(List.of(write)))
+                            .flatMapIterable(completions -> completions)
+                            .collectList();
+                });
+    }
+
+    /**
+     * Escritura pendiente de ejecutar y el solicitante al que hay que entregar su resultado.
+     *
+     * @param mutation La escritura.
+     * @param sink El solicitante.
+     * @param cancelled Si el solicitante ha cancelado la escritura antes de que entrara en un lote.
+     */
+    private record PendingWrite(Function<Connection, Mono<Funko>> mutation, MonoSink<Funko> sink, AtomicBoolean cancelled) {
+    }
+}
@@ -0,0 +1,816 @@
+package org.develop.services.cache;
+
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BiPredicate;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+import java.util.function.ToIntBiFunction;
+
+/**
+ * Cache en memoria acotada y segura para hilos, con politica de expulsion W-TinyLFU.
+ * Los datos estan en un ConcurrentHashMap, de modo que las lecturas no toman ningun cerrojo: cada lectura solo
+ * anota el acceso en un buffer de lecturas repartido por hilos, que puede descartar anotaciones si se llena.
+ * Las escrituras anotan su cambio en un buffer de escrituras que nunca descarta. Los buffers se vacian en segundo
+ * plano, de uno en uno, con el cerrojo de la politica: ahi se reordenan las listas de recencia y se expulsa.
+ * La politica separa una ventana LRU pequena, donde entran las claves nuevas, de una zona principal dividida en
+ * periodo de prueba y protegida. Cuando la cache se llena, la clave que sale de la ventana solo desplaza a la
+ * victima de la zona principal si se ha usado con mas frecuencia, estimada con un FrequencySketch.
+ * Entre que se escribe y se vacian los buffers la cache puede superar por poco su tamano maximo.
+ * Opcionalmente las entradas caducan un tiempo despues de escribirse o de su ultimo acceso. Las caducadas dejan de
+ * devolverse al momento y se retiran al vaciar los buffers mirando solo el principio de las colas: la cola de
+ * escritura esta ordenada por hora de escritura y las de la politica por hora de acceso, asi que cada entrada
+ * caducada cuesta O(1) y nunca se recorre la cache entera.
+ * El limite puede ser un numero de entradas o un peso total, calculado con una funcion que pesa cada entrada, por
+ * ejemplo su tamano estimado en bytes. Los aciertos, fallos, cargas y expulsiones se cuentan sin cerrojos y se
+ * consultan con stats().
+ *
+ * @param <K> El tipo de las claves.
+ * @param <V> El tipo de los valores.
+ */
+public class BoundedCache<K, V> {
+    private static final int READ_BUFFER_SIZE = 16;
+    private static final int READ_BUFFER_MASK = READ_BUFFER_SIZE - 1;
+    private static final int WRITE_BUFFER_DRAIN_THRESHOLD = 128;
+    private static final int STRIPES = Integer.highestOneBit(Math.max(1, Runtime.getRuntime().availableProcessors() * 2) - 1) << 1;
+
+    private final long maximumWeight;
+    private final long maxWindow;
+    private final long maxProtected;
+    private final ToIntBiFunction<? super K, ? super V> weigher;
+    private final long expireAfterWriteNanos;
+    private final long expireAfterAccessNanos;
+    private final LongSupplier ticker;
+    private final ConcurrentHashMap<K, Node<K, V>> data = new ConcurrentHashMap<>();
+    private final ReadBuffer<K, V>[] readBuffers;
+    private final Queue<Runnable> writeBuffer = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger pendingWrites = new AtomicInteger();
+    private final AtomicBoolean drainScheduled = new AtomicBoolean();
+    private final ReentrantLock evictionLock = new ReentrantLock();
+    private final Executor executor;
+    private final StatsCounter stats = new StatsCounter();
+    private final ConcurrentHashMap<K, Load<V>> loading = new ConcurrentHashMap<>();
+    private volatile long weightedSize;
+
+    // Estado de la politica, protegido por evictionLock
+    private final FrequencySketch sketch;
+    private final AccessOrder<K, V> window = new AccessOrder<>();
+    private final AccessOrder<K, V> probation = new AccessOrder<>();
+    private final AccessOrder<K, V> protectedQueue = new AccessOrder<>();
+    private final WriteOrder<K, V> writeOrder = new WriteOrder<>();
+
+    /**
+     * Crea una cache que vacia sus buffers en el pool comun de ForkJoin.
+     *
+     * @param maximumSize El numero maximo de entradas.
+     */
+    public BoundedCache(int maximumSize) {
+        this(maximumSize, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Crea una cache que vacia sus buffers en el executor indicado.
+     *
+     * @param maximumSize El numero maximo de entradas.
+     * @param executor El executor en el que se vacian los buffers.
+     */
+    public BoundedCache(int maximumSize, Executor executor) {
+        this(maximumSize, Duration.ZERO, Duration.ZERO, executor, System::nanoTime);
+    }
+
+    /**
+     * Crea una cache con caducidad.
+     *
+     * @param maximumSize El numero maximo de entradas.
+     * @param expireAfterWrite El tiempo que dura una entrada desde que se escribe, o cero para que no caduque por escritura.
+     * @param expireAfterAccess El tiempo que dura una entrada desde su ultimo acceso, o cero para que no caduque por acceso.
+     * @param executor El executor en el que se vacian los buffers.
+     * @param ticker El reloj en nanosegundos con el que se mide la caducidad.
+     */
+    public BoundedCache(int maximumSize, Duration expireAfterWrite, Duration expireAfterAccess, Executor executor, LongSupplier ticker) {
+        this(maximumSize, (key, value) -> 1, expireAfterWrite, expireAfterAccess, executor, ticker);
+    }
+
+    /**
+     * Crea una cache limitada por peso. La ventana y la zona protegida se reparten el peso maximo en la misma
+     * proporcion que se reparten las entradas cuando el limite es un numero de entradas.
+     *
+     * @param maximumWeight El peso total maximo de las entradas.
+     * @param weigher La funcion que calcula el peso de cada entrada; se llama al guardarla y no debe ser negativa.
+     * @param expireAfterWrite El tiempo que dura una entrada desde que se escribe, o cero para que no caduque por escritura.
+     * @param expireAfterAccess El tiempo que dura una entrada desde su ultimo acceso, o cero para que no caduque por acceso.
+     * @param executor El executor en el que se vacian los buffers.
+     * @param ticker El reloj en nanosegundos con el que se mide la caducidad y el tiempo de carga.
+     */
+    public BoundedCache(long maximumWeight, ToIntBiFunction<? super K, ? super V> weigher, Duration expireAfterWrite,
+                        Duration expireAfterAccess, Executor executor, LongSupplier ticker) {
+        if (maximumWeight <= 0) {
+            throw new IllegalArgumentException("maximumWeight must be positive");
+        }
+        this.maximumWeight = maximumWeight;
+        this.maxWindow = Math.max(1, maximumWeight / 100);
+        this.maxProtected = (long) ((maximumWeight - maxWindow) * 0.8);
+        this.weigher = weigher;
+        this.expireAfterWriteNanos = expireAfterWrite.toNanos();
+        this.expireAfterAccessNanos = expireAfterAccess.toNanos();
+        this.ticker = ticker;
+        this.executor = executor;
+        this.sketch = new FrequencySketch((int) Math.min(maximumWeight, 1024));
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        ReadBuffer<K, V>[] buffers = new ReadBuffer[STRIPES];
+        for (int i = 0; i < STRIPES; i++) {
+            buffers[i] = new ReadBuffer<>();
+        }
+        this.readBuffers = buffers;
+    }
+
+    /**
+     * Obtiene el peso total maximo, que es el numero maximo de entradas si cada entrada pesa uno.
+     *
+     * @return El peso total maximo.
+     */
+    public long getMaximumWeight() {
+        return maximumWeight;
+    }
+
+    /**
+     * Obtiene el valor de una clave sin tomar ningun cerrojo y anota el acceso.
+     *
+     * @param key La clave.
+     * @return El valor, o null si la clave no esta en la cache o ha caducado.
+     */
+    public V getIfPresent(K key) {
+        Node<K, V> node = data.get(key);
+        if (node == null) {
+            stats.recordMiss();
+            return null;
+        }
+        long now = ticker.getAsLong();
+        if (hasExpired(node, now)) {
+            stats.recordMiss();
+            scheduleDrain();
+            return null;
+        }
+        stats.recordHit();
+        if (expireAfterAccessNanos > 0) {
+            node.accessTime = now;
+        }
+        ReadBuffer<K, V> buffer = readBuffers[(int) Thread.currentThread().getId() & (STRIPES - 1)];
+        if (!buffer.offer(node)) {
+            scheduleDrain();
+            buffer.offer(node);
+        }
+        return node.value;
+    }
+
+    /**
+     * Obtiene el valor de una clave y, si no esta, lo carga con la funcion indicada y lo guarda. Solo hay una carga
+     * en curso por clave: quien falla mientras otro esta cargando la misma clave se suscribe a esa carga y recibe su
+     * resultado, asi que N fallos a la vez hacen una sola carga. La carga sigue aunque todos cancelen, para que su
+     * resultado quede en la cache, y se olvida al terminar, de modo que un error o un vacio no se guardan.
+     * Si mientras tanto se guarda o se quita la clave con put o remove, el valor cargado, que puede ser anterior,
+     * no se guarda y el siguiente fallo empieza otra carga.
+     * Se anota el tiempo de cada carga; una carga que termina sin valor no guarda nada y cuenta como fallida.
+     *
+     * @param key La clave.
+     * @param loader La funcion que carga el valor de la clave.
+     * @return Un mono con el valor, o vacio si la carga no devuelve ninguno.
+     */
+    public Mono<V> get(K key, Function<? super K, ? extends Mono<? extends V>> loader) {
+        return Mono.defer(() -> {
+            V value = getIfPresent(key);
+            if (value != null) {
+                return Mono.just(value);
+            }
+            return load(key, loader, k -> { }, k -> { });
+        });
+    }
+
+    /**
+     * Carga el valor de una clave sin buscarlo antes en la cache y lo guarda, compartiendo la carga en curso de esa
+     * clave igual que get. Sirve para quien ya ha buscado la clave y quiere consultar algo mas antes de cargarla.
+     * Si la carga termina sin valor y la clave no se ha guardado ni quitado mientras tanto, se llama a onEmpty, por
+     * ejemplo para recordar que la clave no existe. Si se guarda o se quita justo mientras se ejecuta onEmpty, se
+     * llama despues a revertEmpty para deshacerlo, asi que lo que escribe onEmpty nunca sobrevive a un put o un
+     * remove de la clave hecho durante la carga. Si otro ya estaba cargando la clave, se usan sus funciones.
+     *
+     * @param key La clave.
+     * @param loader La funcion que carga el valor de la clave.
+     * @param onEmpty Se llama con la clave si la carga termina sin valor.
+     * @param revertEmpty Se llama con la clave si se guarda o se quita mientras se ejecutaba onEmpty.
+     * @return Un mono con el valor, o vacio si la carga no devuelve ninguno.
+     */
+    public Mono<V> load(K key, Function<? super K, ? extends Mono<? extends V>> loader,
+                        Consumer<? super K> onEmpty, Consumer<? super K> revertEmpty) {
+        return Mono.defer(() -> loading.computeIfAbsent(key, k -> newLoad(k, loader, onEmpty, revertEmpty)).result);
+    }
+
+    /**
+     * Crea la carga compartida de una clave. El mono que devuelve hace la carga con la primera suscripcion y
+     * repite su resultado al resto.
+     *
+     * @param key La clave.
+     * @param loader La funcion que carga el valor de la clave.
+     * @param onEmpty Se llama con la clave si la carga termina sin valor y no se ha invalidado.
+     * @param revertEmpty Se llama con la clave si la carga se invalida mientras se ejecutaba onEmpty.
+     * @return La carga compartida.
+     */
+    private Load<V> newLoad(K key, Function<? super K, ? extends Mono<? extends V>> loader,
+                            Consumer<? super K> onEmpty, Consumer<? super K> revertEmpty) {
+        Load<V> load = new Load<>();
+        load.result = Mono.defer(() -> {
+            long start = ticker.getAsLong();
+            return loader.apply(key)
+                    .<V>map(loaded -> loaded)
+                    .doOnNext(loaded -> write(key, loaded, load))
+                    .doOnSuccess(loaded -> {
+                        if (loaded == null) {
+                            stats.recordLoadFailure(ticker.getAsLong() - start);
+                            if (!load.invalidated) {
+                                onEmpty.accept(key);
+                                if (load.invalidated) {
+                                    revertEmpty.accept(key);
+                                }
+                            }
+                        } else {
+                            stats.recordLoadSuccess(ticker.getAsLong() - start);
+                        }
+                    })
+                    .doOnError(e -> stats.recordLoadFailure(ticker.getAsLong() - start));
+        }).doFinally(signal -> loading.remove(key, load)).cache();
+        return load;
+    }
+
+    /**
+     * Guarda un valor, sustituyendo el que tuviera la clave.
+     *
+     * @param key La clave.
+     * @param value El valor.
+     */
+    public void put(K key, V value) {
+        invalidateLoad(key);
+        write(key, value, null);
+    }
+
+    /**
+     * Guarda un valor. Si viene de una carga que se ha invalidado, no se guarda; se comprueba dentro del compute
+     * del mapa, asi que un put o un remove que invalida la carga siempre queda por encima del valor cargado.
+     *
+     * @param key La clave.
+     * @param value El valor.
+     * @param load La carga de la que viene el valor, o null si no viene de una carga.
+     */
+    private void write(K key, V value, Load<V> load) {
+        long now = ticker.getAsLong();
+        int weight = weigher.applyAsInt(key, value);
+        if (weight < 0) {
+            throw new IllegalArgumentException("weight must not be negative");
+        }
+        Node<K, V> created = new Node<>(key, value, weight, now);
+        boolean[] written = {false};
+        Node<K, V> node = data.compute(key, (k, prior) -> {
+            if (load != null && load.invalidated) {
+                return prior;
+            }
+            written[0] = true;
+            if (prior == null) {
+                return created;
+            }
+            prior.value = value;
+            prior.weight = weight;
+            prior.writeTime = now;
+            prior.accessTime = now;
+            return prior;
+        });
+        if (written[0]) {
+            afterWrite(node == created ? () -> onAdd(created) : () -> onUpdate(node));
+        }
+    }
+
+    private void invalidateLoad(K key) {
+        Load<V> load = loading.remove(key);
+        if (load != null) {
+            load.invalidated = true;
+        }
+    }
+
+    /**
+     * Quita una clave de la cache.
+     *
+     * @param key La clave.
+     * @return El valor que tenia la clave, o null si no estaba.
+     */
+    public V remove(K key) {
+        invalidateLoad(key);
+        Node<K, V> node = data.remove(key);
+        if (node == null) {
+            return null;
+        }
+        afterWrite(() -> onRemove(node));
+        return node.value;
+    }
+
+    /**
+     * Quita las entradas que cumplen la condicion.
+     *
+     * @param filter La condicion, que recibe la clave y el valor de cada entrada.
+     * @return El numero de entradas quitadas.
+     */
+    public int removeIf(BiPredicate<K, V> filter) {
+        int removed = 0;
+        for (Node<K, V> node : data.values()) {
+            if (filter.test(node.key, node.value) && data.remove(node.key, node)) {
+                afterWrite(() -> onRemove(node));
+                removed++;
+            }
+        }
+        return removed;
+    }
+
+    /**
+     * Quita todas las entradas e invalida las cargas en curso.
+     */
+    public void removeAll() {
+        loading.keySet().forEach(this::invalidateLoad);
+        removeIf((key, value) -> true);
+    }
+
+    /**
+     * Obtiene el numero de entradas, incluidas las que aun estan pendientes de expulsar.
+     *
+     * @return El numero de entradas.
+     */
+    public int size() {
+        return data.size();
+    }
+
+    /**
+     * Obtiene las metricas de la cache. El peso total es el de la ultima vez que se vaciaron los buffers.
+     *
+     * @return Las metricas de la cache.
+     */
+    public CacheStats stats() {
+        return stats.snapshot(data.size(), weightedSize);
+    }
+
+    /**
+     * Obtiene una vista de solo lectura de las entradas de la cache. Leer a traves de la vista no cuenta como acceso.
+     *
+     * @return La vista de la cache como mapa.
+     */
+    public Map<K, V> asMap() {
+        return new AbstractMap<>() {
+            @Override
+            public Set<Entry<K, V>> entrySet() {
+                return new AbstractSet<>() {
+                    @Override
+                    public Iterator<Entry<K, V>> iterator() {
+                        Iterator<Node<K, V>> nodes = data.values().iterator();
+                        return new Iterator<>() {
+                            @Override
+                            public boolean hasNext() {
+                                return nodes.hasNext();
+                            }
+
+                            @Override
+                            public Entry<K, V> next() {
+                                Node<K, V> node = nodes.next();
+                                return Map.entry(node.key, node.value);
+                            }
+                        };
+                    }
+
+                    @Override
+                    public int size() {
+                        return data.size();
+                    }
+                };
+            }
+
+            @Override
+            public V get(Object key) {
+                Node<K, V> node = data.get(key);
+                return node == null ? null : node.value;
+            }
+
+            @Override
+            public boolean containsKey(Object key) {
+                return data.containsKey(key);
+            }
+        };
+    }
+
+    /**
+     * Vacia los buffers y aplica la politica de expulsion en el hilo que llama.
+     */
+    public void cleanUp() {
+        evictionLock.lock();
+        try {
+            drainBuffers();
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    private void afterWrite(Runnable task) {
+        writeBuffer.add(task);
+        if (pendingWrites.incrementAndGet() > WRITE_BUFFER_DRAIN_THRESHOLD) {
+            cleanUp();
+        } else {
+            scheduleDrain();
+        }
+    }
+
+    private void scheduleDrain() {
+        if (drainScheduled.compareAndSet(false, true)) {
+            try {
+                executor.execute(() -> {
+                    drainScheduled.set(false);
+                    cleanUp();
+                });
+            } catch (RejectedExecutionException e) {
+                drainScheduled.set(false);
+                cleanUp();
+            }
+        }
+    }
+
+    private void drainBuffers() {
+        for (ReadBuffer<K, V> buffer : readBuffers) {
+            buffer.drain(this);
+        }
+        Runnable task;
+        while ((task = writeBuffer.poll()) != null) {
+            pendingWrites.decrementAndGet();
+            task.run();
+        }
+        expire(ticker.getAsLong());
+        evict();
+        weightedSize = window.weight + probation.weight + protectedQueue.weight;
+    }
+
+    private boolean hasExpired(Node<K, V> node, long now) {
+        return (expireAfterWriteNanos > 0 && now - node.writeTime >= expireAfterWriteNanos)
+                || (expireAfterAccessNanos > 0 && now - node.accessTime >= expireAfterAccessNanos);
+    }
+
+    /**
+     * Retira las entradas caducadas mirando el principio de cada cola y parando en la primera que no ha caducado.
+     *
+     * @param now La hora actual segun el reloj de la cache.
+     */
+    private void expire(long now) {
+        if (expireAfterWriteNanos > 0) {
+            while (writeOrder.first() != null && expireNode(writeOrder.first(), now)) {
+                // Sigue con la siguiente entrada mas antigua
+            }
+        }
+        if (expireAfterAccessNanos > 0) {
+            for (AccessOrder<K, V> queue : List.of(window, probation, protectedQueue)) {
+                while (queue.first() != null && expireNode(queue.first(), now)) {
+                    // Sigue con la siguiente entrada menos usada
+                }
+            }
+        }
+    }
+
+    /**
+     * Retira una entrada si ha caducado. Se comprueba dentro del compute del mapa para no perder una escritura
+     * que la renueve a la vez. Si la entrada ya no estaba en el mapa, solo se saca de las colas.
+     *
+     * @param node La entrada.
+     * @param now La hora actual segun el reloj de la cache.
+     * @return true si la entrada habia caducado y se ha retirado.
+     */
+    private boolean expireNode(Node<K, V> node, long now) {
+        boolean[] expired = {false};
+        data.computeIfPresent(node.key, (key, current) -> {
+            if (current == node && hasExpired(node, now)) {
+                expired[0] = true;
+                return null;
+            }
+            return current;
+        });
+        if (expired[0]) {
+            stats.recordEviction();
+        }
+        if (expired[0] || data.get(node.key) != node) {
+            onRemove(node);
+            return true;
+        }
+        return false;
+    }
+
+    private void onAdd(Node<K, V> node) {
+        if (node.queue != Node.UNLINKED) {
+            return;
+        }
+        sketch.increment(node.key);
+        node.policyWeight = node.weight;
+        window.addLast(node, Node.WINDOW);
+        if (expireAfterWriteNanos > 0) {
+            writeOrder.addLast(node);
+        }
+    }
+
+    private void onUpdate(Node<K, V> node) {
+        if (node.queue == Node.UNLINKED || node.queue == Node.DEAD) {
+            return;
+        }
+        if (expireAfterWriteNanos > 0) {
+            writeOrder.moveToLast(node);
+        }
+        int weight = node.weight;
+        queueOf(node).weight += weight - node.policyWeight;
+        node.policyWeight = weight;
+        onAccess(node);
+    }
+
+    private AccessOrder<K, V> queueOf(Node<K, V> node) {
+        return switch (node.queue) {
+            case Node.WINDOW -> window;
+            case Node.PROBATION -> probation;
+            default -> protectedQueue;
+        };
+    }
+
+    void onAccess(Node<K, V> node) {
+        sketch.increment(node.key);
+        switch (node.queue) {
+            case Node.WINDOW -> window.moveToLast(node);
+            case Node.PROBATION -> {
+                probation.remove(node);
+                protectedQueue.addLast(node, Node.PROTECTED);
+                while (protectedQueue.weight > maxProtected) {
+                    probation.addLast(protectedQueue.removeFirst(), Node.PROBATION);
+                }
+            }
+            case Node.PROTECTED -> protectedQueue.moveToLast(node);
+            default -> {
+                // La entrada aun no se ha anadido a la politica o ya se ha expulsado
+            }
+        }
+    }
+
+    private void onRemove(Node<K, V> node) {
+        switch (node.queue) {
+            case Node.WINDOW -> window.remove(node);
+            case Node.PROBATION -> probation.remove(node);
+            case Node.PROTECTED -> protectedQueue.remove(node);
+            default -> {
+                // Nunca llego a la politica o ya se ha expulsado
+            }
+        }
+        if (node.inWriteOrder) {
+            writeOrder.remove(node);
+        }
+        node.queue = Node.DEAD;
+    }
+
+    /**
+     * Pasa las entradas que no caben en la ventana al periodo de prueba y, mientras se supere el peso maximo,
+     * enfrenta a la ultima entrada llegada de la ventana con la victima del periodo de prueba: se queda la de
+     * mayor frecuencia estimada. Una entrada que pesa mas que toda la cache se expulsa directamente.
+     */
+    private void evict() {
+        sketch.ensureCapacity(window.size + probation.size + protectedQueue.size);
+        Node<K, V> candidate = null;
+        while (window.weight > maxWindow && window.size > 0) {
+            candidate = window.removeFirst();
+            probation.addLast(candidate, Node.PROBATION);
+        }
+        while (window.weight + probation.weight + protectedQueue.weight > maximumWeight) {
+            Node<K, V> victim = probation.first();
+            if (candidate != null && candidate.queue == Node.PROBATION && candidate.policyWeight > maximumWeight) {
+                victim = candidate;
+                candidate = null;
+            } else if (victim == null) {
+                victim = protectedQueue.size > 0 ? protectedQueue.first() : window.first();
+            } else if (candidate != null && candidate != victim && candidate.queue == Node.PROBATION
+                    && sketch.frequency(candidate.key) <= sketch.frequency(victim.key)) {
+                victim = candidate;
+                candidate = null;
+            }
+            if (victim == null) {
+                break;
+            }
+            evictNode(victim);
+        }
+    }
+
+    private void evictNode(Node<K, V> node) {
+        onRemove(node);
+        if (data.remove(node.key, node)) {
+            stats.recordEviction();
+        }
+    }
+
+    /**
+     * Entrada de la cache. Su valor se lee sin cerrojo; sus enlaces y su cola solo se tocan con el cerrojo de la
+     * politica tomado.
+     */
+    static final class Node<K, V> {
+        static final int UNLINKED = 0;
+        static final int WINDOW = 1;
+        static final int PROBATION = 2;
+        static final int PROTECTED = 3;
+        static final int DEAD = 4;
+
+        final K key;
+        volatile V value;
+        volatile long writeTime;
+        volatile long accessTime;
+        volatile int weight;
+        int policyWeight;
+        int queue = UNLINKED;
+        Node<K, V> prev;
+        Node<K, V> next;
+        boolean inWriteOrder;
+        Node<K, V> writePrev;
+        Node<K, V> writeNext;
+
+        Node(K key, V value, int weight, long now) {
+            this.key = key;
+            this.value = value;
+            this.weight = weight;
+            this.writeTime = now;
+            this.accessTime = now;
+        }
+    }
+
+    /**
+     * Carga en curso de una clave, compartida por todos los que fallan a la vez sobre ella.
+     */
+    private static final class Load<V> {
+        Mono<V> result;
+        volatile boolean invalidated;
+    }
+
+    /**
+     * Lista doblemente enlazada de entradas en orden de acceso, de la menos a la mas reciente, con su peso total.
+     */
+    private static final class AccessOrder<K, V> {
+        private Node<K, V> head;
+        private Node<K, V> tail;
+        private int size;
+        private long weight;
+
+        Node<K, V> first() {
+            return head;
+        }
+
+        void addLast(Node<K, V> node, int queue) {
+            node.queue = queue;
+            node.prev = tail;
+            node.next = null;
+            if (tail == null) {
+                head = node;
+            } else {
+                tail.next = node;
+            }
+            tail = node;
+            size++;
+            weight += node.policyWeight;
+        }
+
+        void remove(Node<K, V> node) {
+            if (node.prev == null) {
+                head = node.next;
+            } else {
+                node.prev.next = node.next;
+            }
+            if (node.next == null) {
+                tail = node.prev;
+            } else {
+                node.next.prev = node.prev;
+            }
+            node.prev = null;
+            node.next = null;
+            node.queue = Node.UNLINKED;
+            size--;
+            weight -= node.policyWeight;
+        }
+
+        Node<K, V> removeFirst() {
+            Node<K, V> node = head;
+            remove(node);
+            return node;
+        }
+
+        void moveToLast(Node<K, V> node) {
+            if (node != tail) {
+                int queue = node.queue;
+                remove(node);
+                addLast(node, queue);
+            }
+        }
+    }
+
+    /**
+     * Lista doblemente enlazada de entradas en orden de escritura, de la mas antigua a la mas reciente.
+     */
+    private static final class WriteOrder<K, V> {
+        private Node<K, V> head;
+        private Node<K, V> tail;
+
+        Node<K, V> first() {
+            return head;
+        }
+
+        void addLast(Node<K, V> node) {
+            node.inWriteOrder = true;
+            node.writePrev = tail;
+            node.writeNext = null;
+            if (tail == null) {
+                head = node;
+            } else {
+                tail.writeNext = node;
+            }
+            tail = node;
+        }
+
+        void remove(Node<K, V> node) {
+            if (node.writePrev == null) {
+                head = node.writeNext;
+            } else {
+                node.writePrev.writeNext = node.writeNext;
+            }
+            if (node.writeNext == null) {
+                tail = node.writePrev;
+            } else {
+                node.writeNext.writePrev = node.writePrev;
+            }
+            node.writePrev = null;
+            node.writeNext = null;
+            node.inWriteOrder = false;
+        }
+
+        void moveToLast(Node<K, V> node) {
+            if (node != tail) {
+                remove(node);
+                addLast(node);
+            }
+        }
+    }
+
+    /**
+     * Buffer circular de accesos de un grupo de hilos. Cualquier hilo anota sin bloquear; si el buffer esta lleno
+     * la anotacion se pierde, lo que solo resta precision a la politica. Solo lo vacia quien tiene el cerrojo.
+     */
+    private static final class ReadBuffer<K, V> {
+        private final AtomicReferenceArray<Node<K, V>> buffer = new AtomicReferenceArray<>(READ_BUFFER_SIZE);
+        private final AtomicLong writes = new AtomicLong();
+        private volatile long reads;
+
+        /**
+         * Anota un acceso.
+         *
+         * @param node La entrada leida.
+         * @return false si el buffer esta lleno y conviene vaciarlo.
+         */
+        boolean offer(Node<K, V> node) {
+            long w = writes.get();
+            if (w - reads >= READ_BUFFER_SIZE) {
+                return false;
+            }
+            if (writes.compareAndSet(w, w + 1)) {
+                buffer.lazySet((int) (w & READ_BUFFER_MASK), node);
+            }
+            return true;
+        }
+
+        void drain(BoundedCache<K, V> cache) {
+            long r = reads;
+            long w = writes.get();
+            for (; r < w; r++) {
+                int index = (int) (r & READ_BUFFER_MASK);
+                Node<K, V> node = buffer.get(index);
+                if (node == null) {
+                    break;
+                }
+                buffer.lazySet(index, null);
+                cache.onAccess(node);
+            }
+            reads = r;
+        }
+    }
+}
@@ -2,6 +2,8 @@ package org.develop.services.cache;
 
 import reactor.core.publisher.Mono;
 
+import java.util.function.Function;
+
 public interface Cache<K,V> {
 
     /**
@@ -21,6 +23,16 @@ public interface Cache<K,V> {
      */
     Mono<V> get(K key);
 
+    /**
+     * Recupera el valor asociado a una clave en la cache y, si no esta, lo carga con la funcion indicada y lo guarda.
+     * Las peticiones que fallan a la vez sobre la misma clave comparten una unica carga.
+     *
+     * @param key La clave cuyo valor se desea recuperar.
+     * @param loader La funcion que carga el valor cuando no esta en la cache.
+     * @return Un mono (Mono) que contiene el valor, o un mono vacio si no esta en la cache y la carga no devuelve ninguno.
+     */
+    Mono<V> get(K key, Function<? super K, ? extends Mono<? extends V>> loader);
+
     /**
      * Elimina una entrada de la cache mediante su clave.
      *
@@ -30,10 +42,22 @@ public interface Cache<K,V> {
     Mono<Void> remove(K key);
 
     /**
-     * Elimina todos los elementos de la cache, dejándola vacia.
+     * Retira de la cache los elementos caducados.
      */
     void clear();
 
+    /**
+     * Elimina todos los elementos de la cache, hayan caducado o no, dejándola vacia.
+     */
+    void invalidateAll();
+
+    /**
+     * Obtiene las metricas de la cache: aciertos, fallos, cargas y su duracion, y expulsiones.
+     *
+     * @return Las metricas de la cache.
+     */
+    CacheStats stats();
+
     /**
      * Realiza una operacion de apagado o liberacion de recursos en la cache, si es necesario.
      */
@@ -0,0 +1,28 @@
+package org.develop.services.cache;
+
+/**
+ * Instantanea de las metricas de una cache.
+ *
+ * @param hitCount Lecturas que encontraron la clave en la cache.
+ * @param missCount Lecturas que no encontraron la clave o la encontraron caducada.
+ * @param loadSuccessCount Cargas que devolvieron un valor y lo guardaron en la cache.
+ * @param loadFailureCount Cargas que fallaron o no devolvieron ningun valor.
+ * @param avgLoadMicros Tiempo medio de una carga, en microsegundos.
+ * @param maxLoadMicros Tiempo maximo de una carga, en microsegundos.
+ * @param evictionCount Entradas expulsadas por tamano o por caducidad, sin contar las que se quitan a mano.
+ * @param size Entradas guardadas en este momento.
+ * @param weightedSize Peso total de las entradas, en las unidades del limite de la cache.
+ */
+public record CacheStats(long hitCount, long missCount, long loadSuccessCount, long loadFailureCount,
+                         long avgLoadMicros, long maxLoadMicros, long evictionCount, long size, long weightedSize) {
+
+    /**
+     * Obtiene la proporcion de lecturas que encontraron la clave en la cache.
+     *
+     * @return La tasa de aciertos, entre 0 y 1, o 1 si aun no hay lecturas.
+     */
+    public double hitRate() {
+        long requests = hitCount + missCount;
+        return requests == 0 ? 1.0 : (double) hitCount / requests;
+    }
+}
@@ -0,0 +1,102 @@
+package org.develop.services.cache;
+
+/**
+ * Estimacion aproximada de la frecuencia de acceso de cada clave (count-min sketch) para la politica de admision
+ * TinyLFU. Cada clave suma en cuatro contadores, uno por fila, elegidos con hashes distintos, y su frecuencia es el
+ * menor de ellos. Los contadores saturan en 15 y, cada cierto numero de accesos, se dividen todos a la mitad para
+ * que las claves que dejaron de usarse pierdan peso.
+ * No es segura para hilos: solo se usa con el cerrojo de la politica de expulsion tomado.
+ */
+final class FrequencySketch {
+    private static final int DEPTH = 4;
+    private static final int MAX_COUNT = 15;
+    private static final int[] SEEDS = {0x97cb3127, 0x9e3779b9, 0x7f4a7c15, 0x85ebca6b};
+
+    private int[][] table;
+    private int mask;
+    private int sampleSize;
+    private int additions;
+
+    /**
+     * Constructor de la clase FrequencySketch.
+     *
+     * @param maximumSize El numero maximo de entradas de la cache.
+     */
+    FrequencySketch(int maximumSize) {
+        resize(maximumSize);
+    }
+
+    /**
+     * Agranda la tabla si la cache guarda mas entradas de las previstas, como pasa cuando se limita por peso y no
+     * por numero de entradas. Al agrandarla se pierden las frecuencias anotadas hasta entonces.
+     *
+     * @param size El numero de entradas de la cache.
+     */
+    void ensureCapacity(int size) {
+        if (width(size) > table[0].length) {
+            resize(size);
+        }
+    }
+
+    private void resize(int maximumSize) {
+        int width = width(maximumSize);
+        this.table = new int[DEPTH][width];
+        this.mask = width - 1;
+        this.sampleSize = 10 * Math.max(16, maximumSize);
+        this.additions = 0;
+    }
+
+    private static int width(int maximumSize) {
+        return Integer.highestOneBit(Math.max(16, maximumSize) - 1) << 1;
+    }
+
+    /**
+     * Estima cuantas veces se ha accedido a la clave.
+     *
+     * @param key La clave.
+     * @return La frecuencia estimada, entre 0 y 15.
+     */
+    int frequency(Object key) {
+        int hash = key.hashCode();
+        int frequency = MAX_COUNT;
+        for (int row = 0; row < DEPTH; row++) {
+            frequency = Math.min(frequency, table[row][index(hash, row)]);
+        }
+        return frequency;
+    }
+
+    /**
+     * Registra un acceso a la clave.
+     *
+     * @param key La clave.
+     */
+    void increment(Object key) {
+        int hash = key.hashCode();
+        boolean added = false;
+        for (int row = 0; row < DEPTH; row++) {
+            int i = index(hash, row);
+            if (table[row][i] < MAX_COUNT) {
+                table[row][i]++;
+                added = true;
+            }
+        }
+        if (added && ++additions >= sampleSize) {
+            reset();
+        }
+    }
+
+    private void reset() {
+        for (int[] row : table) {
+            for (int i = 0; i < row.length; i++) {
+                row[i] >>>= 1;
+            }
+        }
+        additions /= 2;
+    }
+
+    private int index(int hash, int row) {
+        int h = hash * SEEDS[row];
+        h ^= h >>> 16;
+        return h & mask;
+    }
+}
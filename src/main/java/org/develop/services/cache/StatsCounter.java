@@ -0,0 +1,70 @@
+package org.develop.services.cache;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Contadores de las metricas de una cache. Cada contador es un LongAdder, asi que los hilos que leen a la vez
+ * suman en celdas distintas sin competir por la misma linea de cache ni tomar ningun cerrojo.
+ */
+final class StatsCounter {
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder loadSuccesses = new LongAdder();
+    private final LongAdder loadFailures = new LongAdder();
+    private final LongAdder totalLoadNanos = new LongAdder();
+    private final LongAccumulator maxLoadNanos = new LongAccumulator(Math::max, 0);
+    private final LongAdder evictions = new LongAdder();
+
+    void recordHit() {
+        hits.increment();
+    }
+
+    void recordMiss() {
+        misses.increment();
+    }
+
+    void recordLoadSuccess(long nanos) {
+        loadSuccesses.increment();
+        recordLoadTime(nanos);
+    }
+
+    void recordLoadFailure(long nanos) {
+        loadFailures.increment();
+        recordLoadTime(nanos);
+    }
+
+    void recordEviction() {
+        evictions.increment();
+    }
+
+    private void recordLoadTime(long nanos) {
+        totalLoadNanos.add(nanos);
+        maxLoadNanos.accumulate(nanos);
+    }
+
+    /**
+     * Toma una instantanea de los contadores. Cada contador se lee por separado, asi que la instantanea puede
+     * mezclar valores de antes y despues de una operacion que este en curso.
+     *
+     * @param size Entradas guardadas en este momento.
+     * @param weightedSize Peso total de las entradas.
+     * @return Las metricas de la cache.
+     */
+    CacheStats snapshot(long size, long weightedSize) {
+        long loads = loadSuccesses.sum() + loadFailures.sum();
+        long avgLoadNanos = loads == 0 ? 0 : totalLoadNanos.sum() / loads;
+        return new CacheStats(
+                hits.sum(),
+                misses.sum(),
+                loadSuccesses.sum(),
+                loadFailures.sum(),
+                TimeUnit.NANOSECONDS.toMicros(avgLoadNanos),
+                TimeUnit.NANOSECONDS.toMicros(maxLoadNanos.get()),
+                evictions.sum(),
+                size,
+                weightedSize
+        );
+    }
+}
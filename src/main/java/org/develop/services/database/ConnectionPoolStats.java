@@ -0,0 +1,19 @@
+package org.develop.services.database;
+
+/**
+ * Instantanea de las metricas del pool de conexiones de la base de datos.
+ *
+ * @param pool El nombre del pool.
+ * @param acquired Conexiones prestadas en este momento.
+ * @param idle Conexiones abiertas y libres.
+ * @param allocated Conexiones abiertas en total, prestadas o libres.
+ * @param pendingAcquires Peticiones esperando a que quede libre una conexion.
+ * @param maxSize Numero maximo de conexiones del pool.
+ * @param acquireCount Conexiones entregadas desde que se creo el pool.
+ * @param acquireFailures Peticiones de conexion fallidas, por ejemplo por superar el tiempo maximo de espera.
+ * @param avgAcquireMicros Tiempo medio de obtencion de una conexion, en microsegundos.
+ * @param maxAcquireMicros Tiempo maximo de obtencion de una conexion, en microsegundos.
+ */
+public record ConnectionPoolStats(String pool, int acquired, int idle, int allocated, int pendingAcquires, int maxSize,
+                                  long acquireCount, long acquireFailures, long avgAcquireMicros, long maxAcquireMicros) {
+}
@@ -1,13 +1,14 @@
 package org.develop.services.database;
 
 import io.r2dbc.pool.ConnectionPool;
-import io.r2dbc.pool.ConnectionPoolConfiguration;
 import io.r2dbc.spi.Connection;
 import io.r2dbc.spi.ConnectionFactories;
 import io.r2dbc.spi.ConnectionFactory;
+import io.r2dbc.spi.Result;
 import io.r2dbc.spi.Statement;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 import java.io.BufferedReader;
@@ -26,29 +27,63 @@ public class DatabaseManager {
     private static DatabaseManager instance;
     private final Logger logger = LoggerFactory.getLogger(DatabaseManager.class);
     private final ConnectionFactory connectionFactory;
-    private final ConnectionPool pool;
+    private final MeteredConnectionFactory readPool;
+    private final MeteredConnectionFactory writePool;
     private String serverUrl;
     private String dataBaseName;
     private boolean chargeInit;
     private String conURL;
     private String initScript;
+    private PoolSettings readPoolSettings;
+    private PoolSettings writePoolSettings;
+    private boolean poolWarmup;
+    private Duration poolMetricsLogInterval;
+    private boolean groupCommit;
+    private int groupCommitMaxBatchSize;
+    private Duration groupCommitWindow;
 
     private DatabaseManager(){
         configFromProperties();
 
         connectionFactory = ConnectionFactories.get(conURL);
 
-        ConnectionPoolConfiguration configuration = ConnectionPoolConfiguration
-                .builder(connectionFactory)
-                .maxIdleTime(Duration.ofMillis(1000))
-                .maxSize(20)
-                .build();
-
-        pool = new ConnectionPool(configuration);
+        readPool = createPool(readPoolSettings);
+        writePool = createPool(writePoolSettings);
 
         if (chargeInit){
             initTables();
         }
+
+        if (poolWarmup){
+            warmup(readPool);
+            warmup(writePool);
+        }
+
+        if (!poolMetricsLogInterval.isZero()){
+            Flux.interval(poolMetricsLogInterval, poolMetricsLogInterval)
+                    .subscribe(tick -> logger.info("Pools de conexiones: " + getReadPoolStats() + ", " + getWritePoolStats()));
+        }
+    }
+
+    /**
+     * Crea un pool de conexiones con la configuracion indicada.
+     *
+     * @param settings La configuracion del pool.
+     * @return El pool, envuelto para medir el tiempo de obtencion de las conexiones.
+     */
+    private MeteredConnectionFactory createPool(PoolSettings settings){
+        logger.debug("Creando pool de conexiones: " + settings);
+        return new MeteredConnectionFactory(settings.name(), new ConnectionPool(settings.toConfiguration(connectionFactory)));
+    }
+
+    /**
+     * Abre las conexiones iniciales de un pool para que las primeras solicitudes no tengan que esperar a crearlas.
+     *
+     * @param pool El pool que se va a precalentar.
+     */
+    private void warmup(MeteredConnectionFactory pool){
+        Integer warmed = pool.getPool().warmup().block();
+        logger.debug("Pool de conexiones precalentado con " + warmed + " conexiones");
     }
 
     /**
@@ -74,6 +109,13 @@ public class DatabaseManager {
             conURL = properties.getProperty("database.connectionUrl", serverUrl + ":" + dataBaseName + ".db");
             System.out.println(conURL);
             initScript = properties.getProperty("database.initScript", "init.sql");
+            readPoolSettings = PoolSettings.fromProperties(properties, "read", 8, 16);
+            writePoolSettings = PoolSettings.fromProperties(properties, "write", 2, 4);
+            poolWarmup = Boolean.parseBoolean(properties.getProperty("database.pool.warmup", "true"));
+            poolMetricsLogInterval = Duration.ofMillis(Long.parseLong(properties.getProperty("database.pool.metricsLogIntervalMillis", "0")));
+            groupCommit = Boolean.parseBoolean(properties.getProperty("database.groupCommit.enabled", "false"));
+            groupCommitMaxBatchSize = Integer.parseInt(properties.getProperty("database.groupCommit.maxBatchSize", "128"));
+            groupCommitWindow = Duration.ofMillis(Long.parseLong(properties.getProperty("database.groupCommit.windowMillis", "0")));
 
         } catch (IOException e) {
             throw new RuntimeException(e);
@@ -116,7 +158,9 @@ public class DatabaseManager {
                         }
                         // logger.debug(scriptContent);
                         Statement statement = connection.createStatement(scriptContent);
-                        return Mono.from(statement.execute());
+                        return Flux.from(statement.execute())
+                                .flatMap(Result::getRowsUpdated)
+                                .then();
                     } catch (IOException e) {
                         return Mono.error(e);
                     }
@@ -126,11 +170,70 @@ public class DatabaseManager {
     }
 
     /**
-     * Obtiene el pool de conexiones de la base de datos.
+     * Obtiene la fabrica de conexiones para consultas. Entrega conexiones del pool de lectura, separado del de
+     * escritura para que una rafaga de escrituras no deje sin conexiones a las consultas.
+     *
+     * @return La fabrica de conexiones del pool de lectura.
+     */
+    public ConnectionFactory getReadConnectionFactory(){
+        return this.readPool;
+    }
+
+    /**
+     * Obtiene la fabrica de conexiones para inserciones, actualizaciones y borrados. Entrega conexiones del pool
+     * de escritura.
+     *
+     * @return La fabrica de conexiones del pool de escritura.
+     */
+    public ConnectionFactory getWriteConnectionFactory(){
+        return this.writePool;
+    }
+
+    /**
+     * Indica si las escrituras concurrentes se agrupan en transacciones compartidas (group commit).
+     *
+     * @return true si el group commit esta activado.
+     */
+    public boolean isGroupCommitEnabled(){
+        return groupCommit;
+    }
+
+    /**
+     * Obtiene el numero maximo de escrituras que se confirman en una misma transaccion con el group commit.
+     *
+     * @return El tamano maximo de cada lote de escrituras.
+     */
+    public int getGroupCommitMaxBatchSize(){
+        return groupCommitMaxBatchSize;
+    }
+
+    /**
+     * Obtiene el tiempo que se espera antes de formar cada lote de escrituras con el group commit. Con cero los lotes
+     * se forman solo con las escrituras que llegan mientras se confirma el lote anterior.
+     *
+     * @return La ventana de agrupacion de escrituras.
+     */
+    public Duration getGroupCommitWindow(){
+        return groupCommitWindow;
+    }
+
+    /**
+     * Obtiene las metricas actuales del pool de lectura: conexiones prestadas, libres y en espera,
+     * y el tiempo de obtencion de las conexiones.
+     *
+     * @return Una instantanea de las metricas del pool de lectura.
+     */
+    public ConnectionPoolStats getReadPoolStats(){
+        return readPool.stats();
+    }
+
+    /**
+     * Obtiene las metricas actuales del pool de escritura: conexiones prestadas, libres y en espera,
+     * y el tiempo de obtencion de las conexiones.
      *
-     * @return El pool de conexiones de la base de datos.
+     * @return Una instantanea de las metricas del pool de escritura.
      */
-    public ConnectionPool getConnectionPool(){
-        return this.pool;
+    public ConnectionPoolStats getWritePoolStats(){
+        return writePool.stats();
     }
 }
@@ -0,0 +1,99 @@
+package org.develop.services.database;
+
+import io.r2dbc.pool.ConnectionPool;
+import io.r2dbc.pool.PoolMetrics;
+import io.r2dbc.spi.Connection;
+import io.r2dbc.spi.ConnectionFactory;
+import io.r2dbc.spi.ConnectionFactoryMetadata;
+import reactor.core.publisher.Mono;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Fabrica de conexiones que entrega las conexiones del pool y mide cuanto tarda cada una en obtenerse,
+ * desde que se pide hasta que el pool la entrega, incluida la espera si no quedan conexiones libres.
+ * Junto con las metricas del propio pool permite dimensionarlo a partir de datos reales.
+ */
+class MeteredConnectionFactory implements ConnectionFactory {
+    private final String name;
+    private final ConnectionPool pool;
+    private final LongAdder acquireCount = new LongAdder();
+    private final LongAdder acquireFailures = new LongAdder();
+    private final LongAdder acquireNanos = new LongAdder();
+    private final AtomicLong maxAcquireNanos = new AtomicLong();
+
+    /**
+     * Constructor de la clase MeteredConnectionFactory.
+     *
+     * @param name El nombre del pool, con el que se identifican sus metricas.
+     * @param pool El pool de conexiones del que se obtienen las conexiones.
+     */
+    MeteredConnectionFactory(String name, ConnectionPool pool) {
+        this.name = name;
+        this.pool = pool;
+    }
+
+    /**
+     * Obtiene el pool de conexiones del que se obtienen las conexiones.
+     *
+     * @return El pool de conexiones.
+     */
+    ConnectionPool getPool() {
+        return pool;
+    }
+
+    /**
+     * Obtiene una conexion del pool y registra el tiempo de espera.
+     *
+     * @return Un mono (Mono) con la conexion.
+     */
+    @Override
+    public Mono<Connection> create() {
+        return Mono.defer(() -> {
+            long start = System.nanoTime();
+            return pool.create()
+                    .doOnNext(connection -> record(System.nanoTime() - start))
+                    .doOnError(error -> acquireFailures.increment());
+        });
+    }
+
+    @Override
+    public ConnectionFactoryMetadata getMetadata() {
+        return pool.getMetadata();
+    }
+
+    /**
+     * Registra el tiempo que ha tardado en obtenerse una conexion.
+     *
+     * @param nanos El tiempo de espera en nanosegundos.
+     */
+    private void record(long nanos) {
+        acquireCount.increment();
+        acquireNanos.add(nanos);
+        maxAcquireNanos.accumulateAndGet(nanos, Math::max);
+    }
+
+    /**
+     * Devuelve una instantanea del estado del pool y de los tiempos de obtencion de conexiones acumulados.
+     *
+     * @return Las metricas actuales del pool.
+     */
+    ConnectionPoolStats stats() {
+        PoolMetrics metrics = pool.getMetrics().orElse(null);
+        long count = acquireCount.sum();
+        return new ConnectionPoolStats(
+                name,
+                metrics == null ? 0 : metrics.acquiredSize(),
+                metrics == null ? 0 : metrics.idleSize(),
+                metrics == null ? 0 : metrics.allocatedSize(),
+                metrics == null ? 0 : metrics.pendingAcquireSize(),
+                metrics == null ? 0 : metrics.getMaxAllocatedSize(),
+                count,
+                acquireFailures.sum(),
+                count == 0 ? 0 : TimeUnit.NANOSECONDS.toMicros(acquireNanos.sum() / count),
+                TimeUnit.NANOSECONDS.toMicros(maxAcquireNanos.get())
+        );
+    }
+}
@@ -0,0 +1,66 @@
+package org.develop.services.database;
+
+import io.r2dbc.pool.ConnectionPoolConfiguration;
+import io.r2dbc.spi.ConnectionFactory;
+
+import java.time.Duration;
+import java.util.Properties;
+
+/**
+ * Configuracion de uno de los pools de conexiones de la base de datos.
+ *
+ * @param name El nombre del pool.
+ * @param initialSize Conexiones que se abren al crear o precalentar el pool.
+ * @param maxSize Numero maximo de conexiones del pool.
+ * @param maxIdleTime Tiempo que una conexion puede estar libre antes de cerrarse.
+ * @param maxAcquireTime Tiempo maximo de espera para obtener una conexion.
+ * @param validationQuery Consulta con la que se valida una conexion antes de entregarla, o vacia para no usarla.
+ */
+record PoolSettings(String name, int initialSize, int maxSize, Duration maxIdleTime, Duration maxAcquireTime, String validationQuery) {
+
+    /**
+     * Lee la configuracion de un pool. Cada propiedad se busca primero como database.pool.&lt;name&gt;.&lt;propiedad&gt;
+     * y, si no esta, como database.pool.&lt;propiedad&gt;, comun a todos los pools.
+     *
+     * @param properties Las propiedades de configuracion.
+     * @param name El nombre del pool.
+     * @param defaultInitialSize Conexiones iniciales si no se configuran.
+     * @param defaultMaxSize Numero maximo de conexiones si no se configura.
+     * @return La configuracion del pool.
+     */
+    static PoolSettings fromProperties(Properties properties, String name, int defaultInitialSize, int defaultMaxSize) {
+        return new PoolSettings(
+                name,
+                Integer.parseInt(property(properties, name, "initialSize", String.valueOf(defaultInitialSize))),
+                Integer.parseInt(property(properties, name, "maxSize", String.valueOf(defaultMaxSize))),
+                Duration.ofMillis(Long.parseLong(property(properties, name, "maxIdleTimeMillis", "1800000"))),
+                Duration.ofMillis(Long.parseLong(property(properties, name, "maxAcquireTimeMillis", "5000"))),
+                property(properties, name, "validationQuery", "")
+        );
+    }
+
+    private static String property(Properties properties, String name, String key, String defaultValue) {
+        return properties.getProperty("database.pool." + name + "." + key,
+                properties.getProperty("database.pool." + key, defaultValue));
+    }
+
+    /**
+     * Crea la configuracion de r2dbc-pool para un pool sobre la fabrica de conexiones indicada.
+     *
+     * @param connectionFactory La fabrica de conexiones de la base de datos.
+     * @return La configuracion del pool.
+     */
+    ConnectionPoolConfiguration toConfiguration(ConnectionFactory connectionFactory) {
+        ConnectionPoolConfiguration.Builder configuration = ConnectionPoolConfiguration
+                .builder(connectionFactory)
+                .name(name)
+                .initialSize(initialSize)
+                .maxSize(maxSize)
+                .maxIdleTime(maxIdleTime)
+                .maxAcquireTime(maxAcquireTime);
+        if (!validationQuery.isBlank()) {
+            configuration.validationQuery(validationQuery);
+        }
+        return configuration.build();
+    }
+}
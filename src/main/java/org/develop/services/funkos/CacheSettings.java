@@ -0,0 +1,61 @@
+package org.develop.services.funkos;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Duration;
+import java.util.Properties;
+
+/**
+ * Configuracion de la cache de Funkos.
+ *
+ * @param maxEntries Numero maximo de Funkos en la cache, si no se limita por bytes.
+ * @param maxBytes Tamano maximo estimado de la cache en bytes, o cero para limitarla por numero de Funkos.
+ * @param expireAfterWrite Tiempo que dura un Funko desde que se guarda, o cero para que no caduque por escritura.
+ * @param expireAfterAccess Tiempo que dura un Funko desde su ultimo acceso, o cero para que no caduque por acceso.
+ * @param statsLogInterval Cada cuanto se escriben en el log las metricas de la cache, o cero para no escribirlas.
+ * @param notFoundTtl Tiempo que se recuerda que un id no existe, o cero para no recordarlo.
+ * @param notFoundMaxEntries Numero maximo de ids inexistentes que se recuerdan.
+ */
+record CacheSettings(int maxEntries, long maxBytes, Duration expireAfterWrite, Duration expireAfterAccess, Duration statsLogInterval,
+                     Duration notFoundTtl, int notFoundMaxEntries) {
+    private static final Logger logger = LoggerFactory.getLogger(CacheSettings.class);
+
+    /**
+     * Lee la configuracion de la cache de las propiedades cache.*.
+     *
+     * @param properties Las propiedades de configuracion.
+     * @return La configuracion de la cache.
+     */
+    static CacheSettings fromProperties(Properties properties) {
+        return new CacheSettings(
+                Integer.parseInt(properties.getProperty("cache.maxEntries", "10")),
+                Long.parseLong(properties.getProperty("cache.maxBytes", "0")),
+                Duration.ofMillis(Long.parseLong(properties.getProperty("cache.expireAfterWriteMillis", "60000"))),
+                Duration.ofMillis(Long.parseLong(properties.getProperty("cache.expireAfterAccessMillis", "0"))),
+                Duration.ofMillis(Long.parseLong(properties.getProperty("cache.statsLogIntervalMillis", "0"))),
+                Duration.ofMillis(Long.parseLong(properties.getProperty("cache.notFound.ttlMillis", "5000"))),
+                Integer.parseInt(properties.getProperty("cache.notFound.maxEntries", "1000"))
+        );
+    }
+
+    /**
+     * Lee la configuracion de la cache del fichero config.properties. Si no se puede leer, se usan los valores por
+     * defecto.
+     *
+     * @return La configuracion de la cache.
+     */
+    static CacheSettings load() {
+        Properties properties = new Properties();
+        try (InputStream input = CacheSettings.class.getClassLoader().getResourceAsStream("config.properties")) {
+            if (input != null) {
+                properties.load(input);
+            }
+        } catch (IOException e) {
+            logger.error("Error al leer la configuracion de la cache: " + e.getMessage());
+        }
+        return fromProperties(properties);
+    }
+}
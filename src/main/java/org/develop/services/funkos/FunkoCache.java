@@ -1,7 +1,10 @@
 package org.develop.services.funkos;
 
 import org.develop.commons.model.mainUse.Funko;
+import org.develop.commons.model.mainUse.Notificacion;
 import org.develop.services.cache.Cache;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
 
 /**
  * Interfaz que representa una cache específica para objetos Funko, donde los objetos Funko se almacenan y recuperan
@@ -11,4 +14,13 @@ import org.develop.services.cache.Cache;
  * @param <V> Tipo de objeto Funko que se almacena en la cache.
  */
 public interface FunkoCache extends Cache<Integer, Funko> {
+
+    /**
+     * Mantiene la cache al dia con las notificaciones de los Funkos: las altas y los cambios guardan el Funko en la
+     * cache y las bajas lo quitan.
+     *
+     * @param notifications El flujo de notificaciones de los Funkos.
+     * @return La suscripcion a las notificaciones, para poder cancelarla.
+     */
+    Disposable subscribe(Flux<Notificacion<Funko>> notifications);
 }
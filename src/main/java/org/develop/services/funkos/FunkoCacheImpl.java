@@ -2,50 +2,138 @@ package org.develop.services.funkos;
 
 import lombok.Getter;
 import org.develop.commons.model.mainUse.Funko;
+import org.develop.commons.model.mainUse.Notificacion;
+import org.develop.services.cache.BoundedCache;
+import org.develop.services.cache.CacheStats;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
-import java.time.LocalDateTime;
-import java.util.LinkedHashMap;
+import java.time.Duration;
 import java.util.Map;
 import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.ToIntBiFunction;
 
 /**
  * Implementacion de una cache para objetos Funko que almacena y recupera objetos Funko utilizando identificadores enteros (ID).
- * La cache tiene un tamano maximo y utiliza un algoritmo de eliminacion de objetos mas antiguos cuando se alcanza el tamano maximo.
- * Tambien se encarga de eliminar automaticamente los objetos caducados de la cache.
+ * La cache tiene un tamano maximo, en numero de objetos o en bytes estimados, y al alcanzarlo expulsa entradas con la
+ * politica W-TinyLFU de BoundedCache. Limitarla por bytes mantiene acotada la memoria aunque los nombres crezcan.
+ * Es segura para hilos: la comparten todos los ClientHandler y el limpiador, y las lecturas no toman ningun cerrojo.
+ * Los objetos caducan un tiempo despues de guardarse o de su ultimo acceso, y un limpiador periodico libera los caducados.
+ * Ademas recuerda durante poco tiempo los ids que no existen en la base de datos, para que las consultas repetidas de
+ * ids borrados o inventados no lleguen a la tabla. Ese recuerdo se olvida en cuanto se guarda un Funko con ese id,
+ * y no se llega a guardar si el Funko se crea mientras se estaba consultando su id.
+ * Suscrita a las notificaciones de los Funkos, la cache se mantiene al dia sola: cada alta o cambio se escribe en la
+ * cache y cada baja lo quita, asi que tras un UPDATED no se lee la version anterior.
  */
 public class FunkoCacheImpl implements FunkoCache{
+    private static final Duration DEFAULT_EXPIRE_AFTER_WRITE = Duration.ofMinutes(1);
+    private static final Duration DEFAULT_NOT_FOUND_TTL = Duration.ofSeconds(5);
+    private static final int DEFAULT_NOT_FOUND_MAX_ENTRIES = 1000;
+    /**
+     * Bytes aproximados de un objeto Funko sin contar los caracteres de sus textos, con referencias comprimidas:
+     * el propio objeto, su myId, uuid, fechas y la cabecera del String del nombre, mas la entrada de la cache y la
+     * del mapa que la contiene.
+     */
+    private static final int FUNKO_BASE_BYTES = 440;
+
     private final Logger logger = LoggerFactory.getLogger(FunkoCacheImpl.class);
     /**
-     * Tamano maximo de la cache.
+     * Tamano maximo de la cache en numero de objetos, si no se limita por bytes.
      */
     @Getter
     private final int maxSize;
+    /**
+     * Tamano maximo estimado de la cache en bytes, o cero si se limita por numero de objetos.
+     */
     @Getter
-    private final Map<Integer, Funko> cache;
+    private final long maxBytes;
+    private final BoundedCache<Integer, Funko> cache;
+    /**
+     * Ids que no existen en la base de datos, o null si no se recuerdan.
+     */
+    private final BoundedCache<Integer, Boolean> notFound;
     @Getter
     private final ScheduledExecutorService cleaner;
 
     /**
-     * Crea una nueva instancia de FunkoCacheImpl con el tamano maximo especificado.
+     * Crea una nueva instancia de FunkoCacheImpl con el tamano maximo especificado. Cada objeto Funko caduca
+     * DEFAULT_EXPIRE_AFTER_WRITE despues de guardarse en la cache.
      *
      * @param maxSize Tamano maximo de la cache.
      */
     public FunkoCacheImpl(int maxSize){
-        this.maxSize = maxSize;
-        this.cache = new LinkedHashMap<>(maxSize,0.75f,true){
-            @Override
-            protected boolean removeEldestEntry(Map.Entry<Integer, Funko> eldest) {
-                return size() > maxSize;
-            }
-        };
+        this(maxSize, DEFAULT_EXPIRE_AFTER_WRITE, Duration.ZERO);
+    }
+
+    /**
+     * Crea una nueva instancia de FunkoCacheImpl con el tamano maximo y la caducidad especificados. La caducidad se
+     * cuenta desde que el objeto Funko se guarda en la cache o se lee de ella, no desde su fecha de actualizacion.
+     *
+     * @param maxSize Tamano maximo de la cache.
+     * @param expireAfterWrite Tiempo que dura un objeto Funko desde que se guarda, o cero para que no caduque por escritura.
+     * @param expireAfterAccess Tiempo que dura un objeto Funko desde su ultimo acceso, o cero para que no caduque por acceso.
+     */
+    public FunkoCacheImpl(int maxSize, Duration expireAfterWrite, Duration expireAfterAccess){
+        this(new CacheSettings(maxSize, 0, expireAfterWrite, expireAfterAccess, Duration.ZERO,
+                DEFAULT_NOT_FOUND_TTL, DEFAULT_NOT_FOUND_MAX_ENTRIES));
+    }
+
+    /**
+     * Crea una nueva instancia de FunkoCacheImpl con la configuracion indicada. Si se configura un tamano en bytes,
+     * cada objeto Funko pesa lo que devuelve estimateSize y se ignora el numero maximo de objetos.
+     *
+     * @param settings Configuracion de la cache.
+     */
+    FunkoCacheImpl(CacheSettings settings){
+        this.maxSize = settings.maxEntries();
+        this.maxBytes = settings.maxBytes();
+        if (maxBytes > 0) {
+            ToIntBiFunction<Integer, Funko> weigher = (id, funko) -> estimateSize(funko);
+            this.cache = new BoundedCache<>(maxBytes, weigher, settings.expireAfterWrite(), settings.expireAfterAccess(),
+                    ForkJoinPool.commonPool(), System::nanoTime);
+        } else {
+            this.cache = new BoundedCache<>(maxSize, settings.expireAfterWrite(), settings.expireAfterAccess(),
+                    ForkJoinPool.commonPool(), System::nanoTime);
+        }
+        this.notFound = settings.notFoundTtl().isZero() ? null
+                : new BoundedCache<>(settings.notFoundMaxEntries(), settings.notFoundTtl(), Duration.ZERO,
+                        ForkJoinPool.commonPool(), System::nanoTime);
 
         this.cleaner = Executors.newSingleThreadScheduledExecutor();
         this.cleaner.scheduleAtFixedRate(this::clear,2,2, TimeUnit.MINUTES);
+        long statsMillis = settings.statsLogInterval().toMillis();
+        if (statsMillis > 0) {
+            this.cleaner.scheduleAtFixedRate(() -> logger.info("Cache de funkos: " + stats() + ", ids inexistentes: " + getNotFoundStats()),
+                    statsMillis, statsMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Estima los bytes que ocupa en memoria un objeto Funko guardado en la cache. Es una aproximacion: suma un coste
+     * fijo y dos bytes por cada caracter del nombre, el peor caso de un String.
+     *
+     * @param funko El objeto Funko.
+     * @return Los bytes estimados.
+     */
+    public static int estimateSize(Funko funko) {
+        String name = funko.getName();
+        return FUNKO_BASE_BYTES + (name == null ? 0 : 2 * name.length());
+    }
+
+    /**
+     * Obtiene una vista de solo lectura de los objetos Funko guardados en la cache.
+     *
+     * @return La vista de la cache como mapa.
+     */
+    public Map<Integer, Funko> getCache() {
+        return cache.asMap();
     }
 
     /**
@@ -58,7 +146,10 @@ public class FunkoCacheImpl implements FunkoCache{
     @Override
     public Mono<Void> put(Integer key, Funko value) {
         logger.debug("Añadinedo Funko en la Cache id: " + key);
-        return Mono.fromRunnable(()->cache.put(key,value));
+        return Mono.fromRunnable(()-> {
+            cache.put(key,value);
+            forgetNotFound(key);
+        });
     }
 
     /**
@@ -70,7 +161,36 @@ public class FunkoCacheImpl implements FunkoCache{
     @Override
     public Mono<Funko> get(Integer key) {
         logger.debug("Obteniendo Funko de la Cache con id: " + key);
-        return Mono.justOrEmpty(cache.get(key));
+        return Mono.justOrEmpty(cache.getIfPresent(key));
+    }
+
+    /**
+     * Obtiene un objeto Funko de la cache y, si no esta, lo carga con la funcion indicada y lo guarda. Si varios
+     * ClientHandler piden a la vez un objeto Funko que no esta, solo uno lo carga y el resto esperan su resultado.
+     * Si la carga no encuentra el objeto Funko, el id se recuerda como inexistente y las siguientes peticiones
+     * terminan vacias sin llamar a la carga hasta que caduca o se guarda un Funko con ese id. Un Funko guardado
+     * en la cache siempre se devuelve antes de mirar los ids inexistentes.
+     *
+     * @param key Clave para identificar el objeto Funko en la cache.
+     * @param loader Funcion que carga el objeto Funko, normalmente de la base de datos.
+     * @return Una instancia de Mono<Funko> con el objeto Funko, o vacia si no esta en la cache ni lo devuelve la carga.
+     */
+    @Override
+    public Mono<Funko> get(Integer key, Function<? super Integer, ? extends Mono<? extends Funko>> loader) {
+        logger.debug("Obteniendo Funko de la Cache o cargandolo con id: " + key);
+        if (notFound == null) {
+            return cache.get(key, loader);
+        }
+        return Mono.defer(() -> {
+            Funko funko = cache.getIfPresent(key);
+            if (funko != null) {
+                return Mono.just(funko);
+            }
+            if (notFound.getIfPresent(key) != null) {
+                return Mono.empty();
+            }
+            return cache.load(key, loader, id -> notFound.put(id, Boolean.TRUE), notFound::remove);
+        });
     }
 
     /**
@@ -85,18 +205,97 @@ public class FunkoCacheImpl implements FunkoCache{
         return Mono.fromRunnable(()-> cache.remove(key));
     }
 
+    private void forgetNotFound(Integer key) {
+        if (notFound != null) {
+            notFound.remove(key);
+        }
+    }
+
+    /**
+     * Obtiene las metricas de los ids inexistentes recordados: cada acierto es una consulta que no llego a la base
+     * de datos.
+     *
+     * @return Las metricas, o null si no se recuerdan los ids inexistentes.
+     */
+    public CacheStats getNotFoundStats() {
+        return notFound == null ? null : notFound.stats();
+    }
+
     /**
-     * Elimina automaticamente los objetos Funko caducados de la cache.
+     * Mantiene la cache al dia con las notificaciones de los Funkos. NEW y UPDATED guardan el Funko notificado y
+     * olvidan que su id no existia; DELETED lo quita y recuerda que su id ya no existe. Las notificaciones se
+     * emiten antes de responder al cliente que hizo el cambio, asi que ese cliente ya lee su propio cambio.
+     *
+     * @param notifications El flujo de notificaciones de los Funkos.
+     * @return La suscripcion a las notificaciones, para poder cancelarla.
      */
     @Override
-    public void clear() {
-        cache.entrySet().removeIf(entry -> {
-            boolean shouldRemove = entry.getValue().getUpdated_at().plusMinutes(1).isBefore(LocalDateTime.now());
-            if (shouldRemove) {
-                logger.debug("Autoeliminando por caducidad funko de cache con id: " + entry.getKey());
+    public Disposable subscribe(Flux<Notificacion<Funko>> notifications) {
+        logger.debug("Suscribiendo la cache a las notificaciones de funkos");
+        return notifications.subscribe(this::apply,
+                error -> logger.error("Error en las notificaciones de la cache: " + error.getMessage()));
+    }
+
+    /**
+     * Aplica una notificacion a la cache. Un error al aplicarla, por ejemplo una notificacion sin Funko, se escribe
+     * en el log y no llega al flujo, para que la suscripcion siga viva y se apliquen las siguientes.
+     *
+     * @param notificacion La notificacion.
+     */
+    private void apply(Notificacion<Funko> notificacion) {
+        try {
+            Funko funko = notificacion.getContenido();
+            switch (notificacion.getTipo()) {
+                case NEW, UPDATED -> {
+                    cache.put(funko.getId(), funko);
+                    forgetNotFound(funko.getId());
+                }
+                case DELETED -> {
+                    cache.remove(funko.getId());
+                    if (notFound != null) {
+                        notFound.put(funko.getId(), Boolean.TRUE);
+                    }
+                }
             }
-            return shouldRemove;
-        });
+        } catch (RuntimeException e) {
+            logger.error("Error al aplicar una notificacion a la cache: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Retira de la cache los objetos Funko caducados. Solo se revisa el principio de las colas de caducidad, asi que
+     * el coste depende de los objetos caducados y no del tamano de la cache. Los caducados ya no se devolvian antes
+     * de retirarse; esta limpieza periodica solo libera su memoria.
+     */
+    @Override
+    public void clear() {
+        logger.debug("Retirando funkos caducados de la cache");
+        cache.cleanUp();
+        if (notFound != null) {
+            notFound.cleanUp();
+        }
+    }
+
+    /**
+     * Elimina todos los objetos Funko de la cache, hayan caducado o no, y olvida los ids inexistentes.
+     */
+    @Override
+    public void invalidateAll() {
+        logger.debug("Vaciando la cache de funkos");
+        cache.removeAll();
+        if (notFound != null) {
+            notFound.removeAll();
+        }
+    }
+
+    /**
+     * Obtiene las metricas de la cache. Con limite en bytes, el peso total es el tamano estimado en bytes.
+     *
+     * @return Las metricas de la cache.
+     */
+    @Override
+    public CacheStats stats() {
+        return cache.stats();
     }
 
     /**
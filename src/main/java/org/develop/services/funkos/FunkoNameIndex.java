@@ -0,0 +1,147 @@
+package org.develop.services.funkos;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Indice en memoria de los nombres de los Funkos para buscar por subcadena o por prefijo sin recorrer la tabla.
+ * Cada nombre se normaliza (minusculas y sin acentos) y se trocea en trigramas, y para cada trigrama se guardan
+ * los ids de los Funkos que lo contienen. Una busqueda toma la lista mas corta de entre los trigramas de la
+ * consulta y comprueba cada candidato contra su nombre, asi que solo se revisan los Funkos que pueden coincidir.
+ * El nombre se indexa precedido de dos marcas de inicio, de forma que los prefijos de uno o dos caracteres
+ * tambien tienen su trigrama. Las subcadenas de menos de tres caracteres se comprueban contra todos los nombres.
+ * Las lecturas no bloquean; las altas y bajas se hacen de una en una.
+ */
+public class FunkoNameIndex {
+    private static final int GRAM_SIZE = 3;
+    private static final String START = "\u0002\u0002";
+
+    private final Map<String, Set<Integer>> postings = new ConcurrentHashMap<>();
+    private final Map<Integer, String> names = new ConcurrentHashMap<>();
+
+    /**
+     * Indexa el nombre de un Funko, sustituyendo el que tuviera antes.
+     *
+     * @param id El id del Funko.
+     * @param name El nombre del Funko.
+     */
+    public synchronized void put(Integer id, String name) {
+        remove(id);
+        String normalized = normalize(name);
+        names.put(id, normalized);
+        for (String gram : grams(START + normalized)) {
+            postings.computeIfAbsent(gram, key -> ConcurrentHashMap.newKeySet()).add(id);
+        }
+    }
+
+    /**
+     * Quita un Funko del indice.
+     *
+     * @param id El id del Funko.
+     */
+    public synchronized void remove(Integer id) {
+        String old = names.remove(id);
+        if (old == null) {
+            return;
+        }
+        for (String gram : grams(START + old)) {
+            Set<Integer> ids = postings.get(gram);
+            if (ids != null) {
+                ids.remove(id);
+                if (ids.isEmpty()) {
+                    postings.remove(gram);
+                }
+            }
+        }
+    }
+
+    /**
+     * Vacia el indice.
+     */
+    public synchronized void clear() {
+        postings.clear();
+        names.clear();
+    }
+
+    /**
+     * Obtiene el numero de Funkos indexados.
+     *
+     * @return El numero de Funkos indexados.
+     */
+    public int size() {
+        return names.size();
+    }
+
+    /**
+     * Busca los Funkos cuyo nombre contiene el texto indicado, sin distinguir mayusculas ni acentos.
+     *
+     * @param text El texto a buscar.
+     * @return Los ids de los Funkos encontrados, ordenados de menor a mayor.
+     */
+    public List<Integer> findContaining(String text) {
+        String query = normalize(text);
+        return search(query, query, false);
+    }
+
+    /**
+     * Busca los Funkos cuyo nombre empieza por el texto indicado, sin distinguir mayusculas ni acentos.
+     *
+     * @param text El prefijo a buscar.
+     * @return Los ids de los Funkos encontrados, ordenados de menor a mayor.
+     */
+    public List<Integer> findStartingWith(String text) {
+        String query = normalize(text);
+        return search(START + query, query, true);
+    }
+
+    private List<Integer> search(String key, String query, boolean prefix) {
+        Collection<Integer> candidates = names.keySet();
+        if (key.length() >= GRAM_SIZE) {
+            for (String gram : grams(key)) {
+                Set<Integer> ids = postings.get(gram);
+                if (ids == null) {
+                    return List.of();
+                }
+                if (ids.size() < candidates.size()) {
+                    candidates = ids;
+                }
+            }
+        }
+        List<Integer> found = new ArrayList<>();
+        for (Integer id : candidates) {
+            String name = names.get(id);
+            if (name != null && (prefix ? name.startsWith(query) : name.contains(query))) {
+                found.add(id);
+            }
+        }
+        found.sort(null);
+        return found;
+    }
+
+    private static Set<String> grams(String text) {
+        Set<String> grams = new LinkedHashSet<>();
+        for (int i = 0; i + GRAM_SIZE <= text.length(); i++) {
+            grams.add(text.substring(i, i + GRAM_SIZE));
+        }
+        return grams;
+    }
+
+    /**
+     * Normaliza un texto como se normalizan los nombres del indice: en minusculas y sin acentos.
+     *
+     * @param text El texto.
+     * @return El texto normalizado.
+     */
+    static String normalize(String text) {
+        return Normalizer.normalize(text, Normalizer.Form.NFD)
+                .replaceAll("\\p{M}", "")
+                .toLowerCase(Locale.ROOT);
+    }
+}
@@ -1,6 +1,8 @@
 package org.develop.services.funkos;
 
 import org.develop.commons.model.mainUse.Funko;
+import org.develop.commons.model.mainUse.FunkoPage;
+import org.develop.commons.model.mainUse.Modelo;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
@@ -18,9 +20,24 @@ public interface FunkoService {
     //Buscar por nombre
     Flux<Funko> findByName(String name);
 
+    // Buscar por principio del nombre
+    Flux<Funko> findByNamePrefix(String prefix);
+
+    // Buscar por modelo
+    Flux<Funko> findByModelo(Modelo modelo);
+
+    // Buscar por ano de lanzamiento
+    Flux<Funko> findByLaunchYear(int year);
+
+    // Buscar una pagina a partir de un cursor
+    Mono<FunkoPage> findPage(Integer afterId, Integer size);
+
     // Guardar
     Mono<Funko> save(Funko funko);
 
+    // Guardar en lotes
+    Flux<Funko> saveAll(Flux<Funko> funkos);
+
     // Actualizar
     Mono<Funko> update(Funko funko);
 
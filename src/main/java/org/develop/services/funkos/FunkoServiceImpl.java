@@ -2,21 +2,34 @@ package org.develop.services.funkos;
 
 import org.develop.exceptions.funkos.FunkoNotFoundException;
 import org.develop.commons.model.mainUse.Funko;
+import org.develop.commons.model.mainUse.FunkoPage;
+import org.develop.commons.model.mainUse.Modelo;
 import org.develop.commons.model.mainUse.Notificacion;
 import org.develop.repositories.funkos.FunkoRepository;
 import org.develop.services.files.BackupManagerImpl;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import reactor.core.Disposable;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * Implementacion de la interfaz FunkoService que proporciona operaciones para buscar, guardar, actualizar y eliminar Funkos. Tambien permite realizar operaciones de respaldo e importación. Ademas, gestiona notificaciones relacionadas con los Funkos.
  */
 public class FunkoServiceImpl implements FunkoService{
-    private static final int CACHE_SIZE = 10;
+    private static final int DEFAULT_PAGE_SIZE = 50;
+    private static final int MAX_PAGE_SIZE = 500;
 
     private static FunkoServiceImpl instance;
     private final FunkoCache cache;
@@ -24,6 +37,10 @@ public class FunkoServiceImpl implements FunkoService{
     private final Logger logger = LoggerFactory.getLogger(FunkoServiceImpl.class);
     private final FunkoRepository funkoRepository;
     private final BackupManagerImpl backupManager;
+    private final FunkoNameIndex nameIndex = new FunkoNameIndex();
+    private volatile boolean nameIndexReady = false;
+    private final Set<Integer> notifiedWhileIndexing = ConcurrentHashMap.newKeySet();
+    private final AtomicBoolean nameIndexStarted = new AtomicBoolean(false);
 
     /**
      * Crea una nueva instancia de FunkoServiceImpl.
@@ -34,7 +51,7 @@ public class FunkoServiceImpl implements FunkoService{
      */
     private FunkoServiceImpl(FunkoRepository funkoRepository, FunkoNotification notification,BackupManagerImpl backupManager){
         this.funkoRepository=funkoRepository;
-        this.cache = new FunkoCacheImpl(CACHE_SIZE);
+        this.cache = new FunkoCacheImpl(CacheSettings.load());
         this.notification = notification;
         this.backupManager = backupManager;
     }
@@ -74,15 +91,85 @@ public class FunkoServiceImpl implements FunkoService{
     @Override
     public Mono<Funko> findById(Integer id) {
         logger.debug("Buscando Funko por ID: " + id);
-        return cache.get(id)
-                .switchIfEmpty(funkoRepository.findById(id)
-                        .flatMap(funko -> cache.put(funko.getId(),funko)
-                                .then(Mono.just(funko)))
-                        .switchIfEmpty(Mono.error(new FunkoNotFoundException("Funko with id " + id + " not found"))));
+        return cache.get(id, funkoRepository::findById)
+                .switchIfEmpty(Mono.error(new FunkoNotFoundException("Funko with id " + id + " not found")));
     }
 
     /**
-     * Busca Funkos por su nombre.
+     * Suscribe la cache a las notificaciones de altas, cambios y bajas para que se mantenga al dia sola. Los cambios
+     * hechos con los metodos que no notifican no llegan a la cache y se ven cuando caduca la entrada.
+     *
+     * @return La suscripcion de la cache a las notificaciones.
+     */
+    public Disposable subscribeCache() {
+        logger.debug("Suscribiendo la cache a las notificaciones");
+        return cache.subscribe(notification.getNotificationAsFlux());
+    }
+
+    /**
+     * Construye el indice de nombres con todos los Funkos de la base de datos y lo mantiene al dia con las
+     * notificaciones de altas, cambios y bajas. Las notificaciones se escuchan antes de leer el catalogo para no
+     * perder las que lleguen mientras tanto. Una fila leida del catalogo puede ser anterior a una notificacion ya
+     * aplicada, asi que mientras se construye se apuntan los ids notificados y sus filas del catalogo se saltan.
+     * Hasta que termina, las busquedas por nombre recorren la base de datos con la misma normalizacion que el indice.
+     * El indice solo se construye una vez: las siguientes llamadas no vuelven a suscribirse ni a leer el catalogo.
+     *
+     * @return Un mono que emite el numero de Funkos indexados.
+     */
+    public Mono<Integer> buildNameIndex() {
+        if (!nameIndexStarted.compareAndSet(false, true)) {
+            logger.debug("El indice de nombres ya se esta construyendo o esta construido");
+            return Mono.fromSupplier(nameIndex::size);
+        }
+        logger.debug("Construyendo indice de nombres");
+        notification.getNotificationAsFlux().subscribe(this::updateNameIndex,
+                error -> logger.error("Error en las notificaciones del indice de nombres: " + error.getMessage()));
+        return funkoRepository.findAll()
+                .doOnNext(funko -> {
+                    synchronized (nameIndex) {
+                        if (!notifiedWhileIndexing.contains(funko.getId())) {
+                            nameIndex.put(funko.getId(), funko.getName());
+                        }
+                    }
+                })
+                .then(Mono.fromSupplier(() -> {
+                    nameIndexReady = true;
+                    notifiedWhileIndexing.clear();
+                    return nameIndex.size();
+                }));
+    }
+
+    /**
+     * Aplica una notificacion al indice de nombres. Una notificacion sin Funko se ignora y cualquier error se escribe
+     * en el log sin llegar al flujo, para que la suscripcion siga viva y el indice se mantenga al dia.
+     *
+     * @param notificacion La notificacion de alta, cambio o baja de un Funko.
+     */
+    private void updateNameIndex(Notificacion<Funko> notificacion) {
+        Funko funko = notificacion.getContenido();
+        if (funko == null) {
+            logger.warn("Notificacion sin Funko ignorada en el indice de nombres: " + notificacion.getTipo());
+            return;
+        }
+        try {
+            synchronized (nameIndex) {
+                if (!nameIndexReady) {
+                    notifiedWhileIndexing.add(funko.getId());
+                }
+                switch (notificacion.getTipo()) {
+                    case NEW, UPDATED -> nameIndex.put(funko.getId(), funko.getName());
+                    case DELETED -> nameIndex.remove(funko.getId());
+                }
+            }
+        } catch (RuntimeException e) {
+            logger.error("Error al aplicar una notificacion al indice de nombres: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Busca Funkos por su nombre. Con el indice de nombres construido, la busqueda no distingue mayusculas ni
+     * acentos y los Funkos se obtienen por id a traves de la cache; si no, se recorre la base de datos comparando
+     * igual que el indice, para que los resultados no cambien cuando el indice termina de construirse.
      *
      * @param name El nombre o parte del nombre de los Funkos que se desean buscar.
      * @return Un flujo de Funkos que representan los Funkos encontrados con el nombre especificado.
@@ -90,7 +177,107 @@ public class FunkoServiceImpl implements FunkoService{
     @Override
     public Flux<Funko> findByName(String name) {
         logger.debug("Buscando todos los funkos por nombre: " + name);
-        return funkoRepository.findByName(name);
+        if (!nameIndexReady) {
+            String query = FunkoNameIndex.normalize(name);
+            return funkoRepository.findAll()
+                    .filter(funko -> FunkoNameIndex.normalize(funko.getName()).contains(query));
+        }
+        return findAllById(nameIndex.findContaining(name));
+    }
+
+    /**
+     * Busca Funkos cuyo nombre empieza por el texto indicado. Con el indice de nombres construido, la busqueda no
+     * distingue mayusculas ni acentos y los Funkos se obtienen por id a traves de la cache; si no, se recorre la
+     * base de datos comparando igual que el indice.
+     *
+     * @param prefix El principio del nombre de los Funkos que se desean buscar.
+     * @return Un flujo de Funkos cuyo nombre empieza por el texto especificado.
+     */
+    @Override
+    public Flux<Funko> findByNamePrefix(String prefix) {
+        logger.debug("Buscando todos los funkos cuyo nombre empieza por: " + prefix);
+        if (!nameIndexReady) {
+            String query = FunkoNameIndex.normalize(prefix);
+            return funkoRepository.findAll()
+                    .filter(funko -> FunkoNameIndex.normalize(funko.getName()).startsWith(query));
+        }
+        return findAllById(nameIndex.findStartingWith(prefix));
+    }
+
+    /**
+     * Obtiene los Funkos con los ids indicados, en el mismo orden. Primero se miran en la cache y los que faltan se
+     * leen todos juntos de la base de datos con findAllById, para que una busqueda amplia haga unas pocas consultas
+     * y no una por Funko. Los leidos no se guardan en la cache, que es pequena y esta pensada para findById.
+     * Los ids que ya no existen se omiten.
+     *
+     * @param ids Los ids de los Funkos.
+     * @return Un flujo con los Funkos encontrados.
+     */
+    private Flux<Funko> findAllById(List<Integer> ids) {
+        return Mono.defer(() -> {
+            Map<Integer, Funko> found = new HashMap<>();
+            List<Integer> misses = new ArrayList<>();
+            return Flux.fromIterable(ids)
+                    .concatMap(id -> cache.get(id)
+                            .doOnNext(funko -> found.put(id, funko))
+                            .switchIfEmpty(Mono.fromRunnable(() -> misses.add(id))))
+                    .thenMany(Flux.defer(() -> misses.isEmpty() ? Flux.empty() : funkoRepository.findAllById(misses)))
+                    .doOnNext(funko -> found.put(funko.getId(), funko))
+                    .then(Mono.fromSupplier(() -> ids.stream()
+                            .map(found::get)
+                            .filter(Objects::nonNull)
+                            .toList()));
+        }).flatMapIterable(funkos -> funkos);
+    }
+
+    /**
+     * Busca Funkos por su modelo.
+     *
+     * @param modelo El modelo de los Funkos que se desean buscar.
+     * @return Un flujo de Funkos del modelo especificado.
+     */
+    @Override
+    public Flux<Funko> findByModelo(Modelo modelo) {
+        logger.debug("Buscando todos los funkos por modelo: " + modelo);
+        return funkoRepository.findByModelo(modelo);
+    }
+
+    /**
+     * Busca Funkos por su ano de lanzamiento, como el rango de fechas desde el 1 de enero de ese ano
+     * hasta el 1 de enero del siguiente.
+     *
+     * @param year El ano de lanzamiento de los Funkos que se desean buscar.
+     * @return Un flujo de Funkos lanzados en el ano especificado.
+     */
+    @Override
+    public Flux<Funko> findByLaunchYear(int year) {
+        logger.debug("Buscando todos los funkos lanzados en: " + year);
+        LocalDate from = LocalDate.ofYearDay(year, 1);
+        return funkoRepository.findByLaunchDateBetween(from, from.plusYears(1));
+    }
+
+    /**
+     * Busca una pagina del catalogo ordenado por id a partir de un cursor. Se pide un Funko mas de los necesarios
+     * para saber si hay pagina siguiente sin hacer otra consulta.
+     *
+     * @param afterId El cursor: se devuelven los Funkos con id mayor que este. Si es null se empieza por el principio.
+     * @param size El tamano de pagina. Si es null o no es valido se usa DEFAULT_PAGE_SIZE, y nunca supera MAX_PAGE_SIZE.
+     * @return Un mono con la pagina y el cursor de la siguiente, o null como cursor si es la ultima.
+     */
+    @Override
+    public Mono<FunkoPage> findPage(Integer afterId, Integer size) {
+        int cursor = afterId == null ? 0 : afterId;
+        int pageSize = size == null || size <= 0 ? DEFAULT_PAGE_SIZE : Math.min(size, MAX_PAGE_SIZE);
+        logger.debug("Buscando pagina de " + pageSize + " funkos despues del id: " + cursor);
+        return funkoRepository.findPage(cursor, pageSize + 1)
+                .collectList()
+                .map(funkos -> {
+                    if (funkos.size() <= pageSize) {
+                        return new FunkoPage(funkos, null);
+                    }
+                    List<Funko> page = funkos.subList(0, pageSize);
+                    return new FunkoPage(page, page.get(pageSize - 1).getId());
+                });
     }
 
     /**
@@ -100,8 +287,7 @@ public class FunkoServiceImpl implements FunkoService{
      * @return Un mono que emite el Funko guardado en la base de datos.
      */
     public Mono<Funko> saveWithOutNotification(Funko funko){
-         return funkoRepository.save(funko)
-                .flatMap(saved -> funkoRepository.findByUuid(saved.getUuid()));
+         return funkoRepository.save(funko);
     }
 
     @Override
@@ -111,15 +297,29 @@ public class FunkoServiceImpl implements FunkoService{
                 .doOnSuccess(fkSaved -> notification.notify(new Notificacion<>(Notificacion.Tipo.NEW,fkSaved)));
     }
 
+    /**
+     * Guarda un conjunto de Funkos en lotes y genera una notificacion de nueva creacion por cada uno.
+     *
+     * @param funkos Los Funkos que se van a guardar.
+     * @return Un flujo de los Funkos guardados.
+     */
+    @Override
+    public Flux<Funko> saveAll(Flux<Funko> funkos) {
+        logger.debug("Guardando Funkos en lotes");
+        return funkoRepository.saveAll(funkos)
+                .doOnNext(fkSaved -> notification.notify(new Notificacion<>(Notificacion.Tipo.NEW,fkSaved)));
+    }
+
     /**
      * Actualiza un Funko en la base de datos sin generar una notificacion de actualización.
      *
      * @param funko El Funko que se va a actualizar.
      * @return Un mono que emite el Funko actualizado en la base de datos.
+     * @throws FunkoNotFoundException Si no se encuentra un Funko con el ID del Funko proporcionado.
      */
     public Mono<Funko> updateWithOutNotification(Funko funko){
         return funkoRepository.update(funko)
-                .flatMap(updated->findById(updated.getId()));
+                .switchIfEmpty(Mono.error(new FunkoNotFoundException("Funko with id " + funko.getId() + " not found")));
     }
 
     @Override
@@ -137,11 +337,8 @@ public class FunkoServiceImpl implements FunkoService{
      * @throws FunkoNotFoundException Si no se encuentra un Funko con el ID proporcionado.
      */
     public Mono<Funko> deleteByIdWithOutNotification(Integer id){
-        return funkoRepository.findById(id)
-                .switchIfEmpty(Mono.error(new FunkoNotFoundException("Funko with id " + id + " not found")))
-                .flatMap(funko -> cache.remove(funko.getId())
-                        .then(funkoRepository.deleteById(funko.getId()))
-                        .thenReturn(funko));
+        return funkoRepository.deleteByIdReturning(id)
+                .switchIfEmpty(Mono.error(new FunkoNotFoundException("Funko with id " + id + " not found")));
     }
 
     /**
@@ -160,16 +357,19 @@ public class FunkoServiceImpl implements FunkoService{
 
 
     /**
-     * Elimina todos los Funkos de la base de datos y limpia la cache.
+     * Elimina todos los Funkos de la base de datos y, cuando termina el borrado, limpia la cache y el indice de
+     * nombres, para que ninguna lectura hecha durante el borrado vuelva a llenarlos con filas ya borradas.
      *
      * @return Un Mono que indica que la eliminación se ha completado con exito.
      */
     @Override
     public Mono<Void> deleteAll() {
         logger.debug("Eliminando todos los Funkos");
-        cache.clear();
         return funkoRepository.deleteAll()
-                .then(Mono.empty());
+                .then(Mono.fromRunnable(() -> {
+                    cache.invalidateAll();
+                    nameIndex.clear();
+                }));
     }
 
     /**
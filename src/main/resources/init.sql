@@ -1,6 +1,6 @@
 CREATE TABLE IF NOT EXISTS FUNKO (
     ID INTEGER PRIMARY KEY AUTO_INCREMENT,
-    uuid UUID DEFAULT RANDOM_UUID(),
+    uuid UUID NOT NULL,
     Myid LONG NOT NULL,
     name VARCHAR(255) NOT NULL,
     modelo VARCHAR(10) NOT NULL CHECK (modelo IN ('MARVEL', 'DISNEY','ANIME', 'OTROS')),
@@ -9,3 +9,11 @@ CREATE TABLE IF NOT EXISTS FUNKO (
     created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
     updated_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
 );
+CREATE UNIQUE INDEX IF NOT EXISTS IDX_FUNKO_UUID ON FUNKO (uuid);
+CREATE INDEX IF NOT EXISTS IDX_FUNKO_MODELO ON FUNKO (modelo);
+CREATE INDEX IF NOT EXISTS IDX_FUNKO_FECHA_LANZAMIENTO ON FUNKO (fecha_lanzamiento);
+
+CREATE TABLE IF NOT EXISTS ID_SEQUENCE (
+    name VARCHAR(50) PRIMARY KEY,
+    next_value BIGINT NOT NULL
+);
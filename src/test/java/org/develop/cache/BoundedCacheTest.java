@@ -0,0 +1,250 @@
+package org.develop.cache;
+
+import org.develop.services.cache.BoundedCache;
+import org.develop.services.cache.CacheStats;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BoundedCacheTest {
+
+    @Test
+    void evictsToMaximumSize() {
+        BoundedCache<Integer, String> cache = new BoundedCache<>(100, Runnable::run);
+        for (int i = 0; i < 1000; i++) {
+            cache.put(i, "v" + i);
+        }
+        cache.cleanUp();
+
+        assertEquals(100, cache.size());
+    }
+
+    @Test
+    void frequentKeysSurviveScan() {
+        BoundedCache<Integer, String> cache = new BoundedCache<>(100, Runnable::run);
+        for (int i = 0; i < 50; i++) {
+            cache.put(i, "hot" + i);
+        }
+        cache.put(-1, "window");
+        for (int round = 0; round < 5; round++) {
+            for (int i = 0; i < 50; i++) {
+                cache.getIfPresent(i);
+            }
+            cache.cleanUp();
+        }
+        for (int i = 1000; i < 2000; i++) {
+            cache.put(i, "scan" + i);
+        }
+        cache.cleanUp();
+
+        long hot = cache.asMap().keySet().stream().filter(key -> key < 50).count();
+        assertEquals(50, hot);
+    }
+
+    @Test
+    void removeAndRemoveIf() {
+        BoundedCache<Integer, String> cache = new BoundedCache<>(10, Runnable::run);
+        cache.put(1, "a");
+        cache.put(2, "b");
+        cache.put(3, "c");
+
+        assertAll(
+                ()-> assertEquals("a", cache.remove(1)),
+                ()-> assertNull(cache.getIfPresent(1)),
+                ()-> assertEquals(1, cache.removeIf((key, value) -> value.equals("b"))),
+                ()-> assertEquals(1, cache.size())
+        );
+    }
+
+    @Test
+    void expireAfterWrite() {
+        AtomicLong now = new AtomicLong();
+        BoundedCache<Integer, String> cache = new BoundedCache<>(10, Duration.ofSeconds(10), Duration.ZERO, Runnable::run, now::get);
+        cache.put(1, "a");
+        now.addAndGet(Duration.ofSeconds(5).toNanos());
+        cache.put(2, "b");
+        cache.getIfPresent(1);
+        now.addAndGet(Duration.ofSeconds(6).toNanos());
+
+        assertAll(
+                ()-> assertNull(cache.getIfPresent(1)),
+                ()-> assertEquals("b", cache.getIfPresent(2)),
+                ()-> assertEquals(1, cache.size())
+        );
+    }
+
+    @Test
+    void expireAfterAccess() {
+        AtomicLong now = new AtomicLong();
+        BoundedCache<Integer, String> cache = new BoundedCache<>(10, Duration.ZERO, Duration.ofSeconds(10), Runnable::run, now::get);
+        cache.put(1, "a");
+        cache.put(2, "b");
+        now.addAndGet(Duration.ofSeconds(8).toNanos());
+        cache.getIfPresent(1);
+        now.addAndGet(Duration.ofSeconds(8).toNanos());
+        cache.cleanUp();
+
+        assertAll(
+                ()-> assertEquals("a", cache.getIfPresent(1)),
+                ()-> assertNull(cache.getIfPresent(2)),
+                ()-> assertEquals(1, cache.size())
+        );
+    }
+
+    @Test
+    void evictsToMaximumWeight() {
+        BoundedCache<Integer, String> cache = new BoundedCache<>(100, (key, value) -> value.length(), Duration.ZERO, Duration.ZERO, Runnable::run, System::nanoTime);
+        for (int i = 0; i < 50; i++) {
+            cache.put(i, "0123456789");
+        }
+        cache.put(100, "x".repeat(500));
+        cache.cleanUp();
+
+        assertAll(
+                ()-> assertEquals(10, cache.size()),
+                ()-> assertNull(cache.getIfPresent(100)),
+                ()-> assertEquals(100, cache.stats().weightedSize())
+        );
+    }
+
+    @Test
+    void recordsStats() {
+        AtomicLong now = new AtomicLong();
+        BoundedCache<Integer, String> cache = new BoundedCache<>(2, Duration.ZERO, Duration.ZERO, Runnable::run, now::get);
+        cache.put(1, "a");
+        cache.getIfPresent(1);
+        cache.getIfPresent(2);
+        cache.get(3, key -> Mono.fromSupplier(() -> {
+            now.addAndGet(Duration.ofMillis(4).toNanos());
+            return "c";
+        })).block();
+        cache.get(4, key -> Mono.empty()).block();
+        cache.put(5, "e");
+        cache.cleanUp();
+        CacheStats stats = cache.stats();
+
+        assertAll(
+                ()-> assertEquals(1, stats.hitCount()),
+                ()-> assertEquals(3, stats.missCount()),
+                ()-> assertEquals(1, stats.loadSuccessCount()),
+                ()-> assertEquals(1, stats.loadFailureCount()),
+                ()-> assertEquals(4000, stats.maxLoadMicros()),
+                ()-> assertEquals(2000, stats.avgLoadMicros()),
+                ()-> assertEquals(1, stats.evictionCount()),
+                ()-> assertEquals(2, stats.size()),
+                ()-> assertEquals(0.25, stats.hitRate())
+        );
+    }
+
+    @Test
+    void concurrentMissesShareOneLoad() throws Exception {
+        BoundedCache<Integer, String> cache = new BoundedCache<>(10);
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService threads = Executors.newFixedThreadPool(16);
+        List<Future<String>> tasks = new ArrayList<>();
+        for (int t = 0; t < 16; t++) {
+            tasks.add(threads.submit(() -> cache.get(1, key -> Mono.fromCallable(() -> {
+                loads.incrementAndGet();
+                release.await();
+                return "a";
+            })).block()));
+        }
+        Thread.sleep(200);
+        release.countDown();
+        for (Future<String> task : tasks) {
+            assertEquals("a", task.get(5, TimeUnit.SECONDS));
+        }
+        threads.shutdown();
+
+        assertAll(
+                ()-> assertEquals(1, loads.get()),
+                ()-> assertEquals(1, cache.stats().loadSuccessCount()),
+                ()-> assertEquals("a", cache.getIfPresent(1))
+        );
+    }
+
+    @Test
+    void failedLoadIsRetried() {
+        BoundedCache<Integer, String> cache = new BoundedCache<>(10, Runnable::run);
+        AtomicInteger loads = new AtomicInteger();
+
+        assertThrows(IllegalStateException.class, () -> cache.get(1, key -> {
+            loads.incrementAndGet();
+            return Mono.error(new IllegalStateException());
+        }).block());
+        String value = cache.get(1, key -> {
+            loads.incrementAndGet();
+            return Mono.just("a");
+        }).block();
+
+        assertAll(
+                ()-> assertEquals("a", value),
+                ()-> assertEquals(2, loads.get())
+        );
+    }
+
+    @Test
+    void writeDuringLoadWins() {
+        BoundedCache<Integer, String> cache = new BoundedCache<>(10, Runnable::run);
+        Sinks.One<String> first = Sinks.one();
+        Sinks.One<String> second = Sinks.one();
+        cache.get(1, key -> first.asMono()).subscribe();
+        cache.get(2, key -> second.asMono()).subscribe();
+        cache.put(1, "new");
+        cache.remove(2);
+        first.tryEmitValue("old");
+        second.tryEmitValue("deleted");
+
+        assertAll(
+                ()-> assertEquals("new", cache.getIfPresent(1)),
+                ()-> assertNull(cache.getIfPresent(2)),
+                ()-> assertEquals("fresh", cache.get(2, key -> Mono.just("fresh")).block())
+        );
+    }
+
+    @Test
+    void concurrentAccessStaysBounded() throws Exception {
+        BoundedCache<Integer, Integer> cache = new BoundedCache<>(64);
+        ExecutorService threads = Executors.newFixedThreadPool(8);
+        List<Future<?>> tasks = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            tasks.add(threads.submit(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                for (int i = 0; i < 50_000; i++) {
+                    int key = random.nextInt(500);
+                    Integer value = cache.getIfPresent(key);
+                    if (value == null) {
+                        cache.put(key, key);
+                    } else {
+                        assertEquals(key, value);
+                    }
+                    if (i % 1000 == 0) {
+                        cache.remove(random.nextInt(500));
+                    }
+                }
+            }));
+        }
+        for (Future<?> task : tasks) {
+            task.get();
+        }
+        threads.shutdown();
+        cache.cleanUp();
+
+        assertTrue(cache.size() <= 64);
+    }
+}
@@ -2,6 +2,7 @@ package org.develop.cache;
 
 import org.develop.commons.model.mainUse.Funko;
 import org.develop.commons.model.mainUse.Modelo;
+import org.develop.commons.model.mainUse.Notificacion;
 import org.develop.services.funkos.FunkoCacheImpl;
 import org.develop.services.funkos.FunkoServiceImpl;
 import org.junit.jupiter.api.AfterEach;
@@ -9,11 +10,16 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
 
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.Optional;
 import java.util.UUID;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -102,6 +108,131 @@ class FunkoCacheImplTest {
         );
     }
 
+    @Test
+    void clearKeepsFreshEntriesOfOldRowsTest() {
+        funko1.setUpdated_at(LocalDateTime.now().minusDays(1));
+        funkoCache.put(funko1.getId(),funko1).block();
+        funkoCache.clear();
+
+        assertTrue(funkoCache.get(funko1.getId()).blockOptional().isPresent());
+    }
+
+    @Test
+    void invalidateAllTest() {
+        funkoCache.put(funko1.getId(),funko1).block();
+        funkoCache.put(funko2.getId(),funko2).block();
+        funkoCache.invalidateAll();
+
+        assertAll(
+                ()-> assertTrue(funkoCache.getCache().isEmpty()),
+                ()-> assertTrue(funkoCache.get(funko1.getId()).blockOptional().isEmpty())
+        );
+    }
+
+    @Test
+    void getWithLoaderTest() {
+        var loaded = funkoCache.get(funko1.getId(), id -> Mono.just(funko1)).block();
+        var cached = funkoCache.get(funko1.getId(), id -> Mono.error(new IllegalStateException())).block();
+        var stats = funkoCache.stats();
+
+        assertAll(
+                ()-> assertEquals(funko1, loaded),
+                ()-> assertEquals(funko1, cached),
+                ()-> assertEquals(1, stats.hitCount()),
+                ()-> assertEquals(1, stats.missCount()),
+                ()-> assertEquals(1, stats.loadSuccessCount())
+        );
+    }
+
+    @Test
+    void notFoundIsRememberedTest() {
+        AtomicInteger loads = new AtomicInteger();
+        Function<Integer, Mono<Funko>> loader = id -> Mono.fromRunnable(loads::incrementAndGet);
+
+        var first = funkoCache.get(19, loader).blockOptional();
+        var second = funkoCache.get(19, loader).blockOptional();
+        funkoCache.put(19, funko1).block();
+        funkoCache.remove(19).block();
+        funkoCache.get(19, loader).block();
+        funkoCache.put(19, funko1).block();
+        funkoCache.remove(19).block();
+        funkoCache.get(19, loader).block();
+
+        assertAll(
+                ()-> assertTrue(first.isEmpty()),
+                ()-> assertTrue(second.isEmpty()),
+                ()-> assertEquals(3, loads.get()),
+                ()-> assertEquals(1, funkoCache.getNotFoundStats().hitCount())
+        );
+    }
+
+    @Test
+    void notFoundIsNotRememberedWhenCreatedDuringLoadTest() {
+        Sinks.One<Funko> pending = Sinks.one();
+        AtomicInteger loads = new AtomicInteger();
+        Function<Integer, Mono<Funko>> loader = id -> Mono.fromRunnable(loads::incrementAndGet);
+
+        var missing = funkoCache.get(19, id -> pending.asMono()).toFuture();
+        funkoCache.put(19, funko1).block();
+        pending.tryEmitEmpty();
+        var created = funkoCache.get(19, loader).block();
+        long remembered = funkoCache.getNotFoundStats().size();
+        funkoCache.remove(19).block();
+        funkoCache.get(19, loader).block();
+
+        assertAll(
+                ()-> assertNull(missing.join()),
+                ()-> assertEquals(funko1, created),
+                ()-> assertEquals(1, loads.get()),
+                ()-> assertEquals(0, remembered)
+        );
+    }
+
+    @Test
+    void notificationsKeepCacheCoherentTest() {
+        Sinks.Many<Notificacion<Funko>> notifications = Sinks.many().multicast().directBestEffort();
+        AtomicInteger loads = new AtomicInteger();
+        Function<Integer, Mono<Funko>> loader = id -> Mono.fromRunnable(loads::incrementAndGet);
+        funkoCache.subscribe(notifications.asFlux());
+
+        funkoCache.get(funko1.getId(), loader).block();
+        notifications.tryEmitNext(new Notificacion<>(Notificacion.Tipo.NEW, funko1));
+        var created = funkoCache.get(funko1.getId(), loader).block();
+        funko2.setId(funko1.getId());
+        notifications.tryEmitNext(new Notificacion<>(Notificacion.Tipo.UPDATED, funko2));
+        var updated = funkoCache.get(funko1.getId(), loader).block();
+        notifications.tryEmitNext(new Notificacion<>(Notificacion.Tipo.DELETED, funko2));
+        var deleted = funkoCache.get(funko1.getId(), loader).blockOptional();
+
+        assertAll(
+                ()-> assertEquals(funko1, created),
+                ()-> assertEquals(funko2, updated),
+                ()-> assertTrue(deleted.isEmpty()),
+                ()-> assertEquals(1, loads.get())
+        );
+    }
+
+    @Test
+    void invalidNotificationDoesNotStopSubscriptionTest() {
+        Sinks.Many<Notificacion<Funko>> notifications = Sinks.many().multicast().directBestEffort();
+        var subscription = funkoCache.subscribe(notifications.asFlux());
+
+        notifications.tryEmitNext(new Notificacion<>(Notificacion.Tipo.NEW, null));
+        notifications.tryEmitNext(new Notificacion<>(Notificacion.Tipo.NEW, funko1));
+
+        assertAll(
+                ()-> assertFalse(subscription.isDisposed()),
+                ()-> assertEquals(funko1, funkoCache.get(funko1.getId()).block())
+        );
+    }
+
+    @Test
+    void estimateSizeGrowsWithNameTest() {
+        funko2.setName(funko1.getName().repeat(10));
+
+        assertTrue(FunkoCacheImpl.estimateSize(funko2) > FunkoCacheImpl.estimateSize(funko1));
+    }
+
     @Test
     void shutdownTest() {
         funkoCache.shutdown();
@@ -0,0 +1,69 @@
+package org.develop.commons.model.mainUse;
+
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MyIDGeneratorTest {
+
+    @Test
+    void nextIdReservesBlocksInOrder() {
+        AtomicLong nextFree = new AtomicLong(41);
+        AtomicInteger reservations = new AtomicInteger();
+        MyIDGenerator generator = new MyIDGenerator(size -> {
+            reservations.incrementAndGet();
+            return Mono.just(nextFree.getAndAdd(size));
+        }, 10);
+
+        List<Long> ids = Flux.range(0, 25).concatMap(i -> generator.nextId()).collectList().block();
+
+        assertAll(
+                ()-> assertEquals(41L, ids.get(0)),
+                ()-> assertEquals(65L, ids.get(24)),
+                ()-> assertEquals(3, reservations.get())
+        );
+    }
+
+    @Test
+    void nextIdConcurrentIsUnique() {
+        AtomicLong nextFree = new AtomicLong(1);
+        MyIDGenerator generator = new MyIDGenerator(size -> Mono.just(nextFree.getAndAdd(size)), 16);
+
+        List<Long> ids = Flux.range(0, 20_000)
+                .parallel(8)
+                .runOn(Schedulers.parallel())
+                .flatMap(i -> generator.nextId())
+                .sequential()
+                .collectList().block();
+
+        assertEquals(20_000, ids.stream().distinct().count());
+    }
+
+    @Test
+    void nextIdRetriesAfterFailedReservation() {
+        AtomicInteger calls = new AtomicInteger();
+        MyIDGenerator generator = new MyIDGenerator(size -> calls.incrementAndGet() == 1
+                ? Mono.error(new IllegalStateException("db down"))
+                : Mono.just(100L), 10);
+
+        assertThrows(IllegalStateException.class, () -> generator.nextId().block());
+        assertEquals(100L, generator.nextId().block());
+    }
+
+    @Test
+    void useBlockSourceDiscardsCurrentBlock() {
+        MyIDGenerator generator = new MyIDGenerator(size -> Mono.just(1L), 10);
+        assertEquals(1L, generator.nextId().block());
+
+        generator.useBlockSource(size -> Mono.just(500L));
+
+        assertEquals(500L, generator.nextId().block());
+    }
+}
@@ -0,0 +1,39 @@
+package org.develop.commons.model.mainUse;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MyUUIDGeneratorTest {
+
+    private final MyUUIDGenerator generator = MyUUIDGenerator.getInstance();
+
+    @Test
+    void generateVersion7() {
+        long before = System.currentTimeMillis();
+        UUID uuid = generator.generate();
+        long timestamp = uuid.getMostSignificantBits() >>> 16;
+
+        assertAll(
+                ()-> assertEquals(7, uuid.version()),
+                ()-> assertEquals(2, uuid.variant()),
+                ()-> assertTrue(timestamp >= before && timestamp <= System.currentTimeMillis() + 1)
+        );
+    }
+
+    @Test
+    void generateIsIncreasing() {
+        List<UUID> uuids = new ArrayList<>();
+        for (int i = 0; i < 20_000; i++) {
+            uuids.add(generator.generate());
+        }
+
+        for (int i = 1; i < uuids.size(); i++) {
+            assertTrue(uuids.get(i - 1).compareTo(uuids.get(i)) < 0);
+        }
+    }
+}
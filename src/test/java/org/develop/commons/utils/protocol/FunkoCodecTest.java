@@ -0,0 +1,124 @@
+package org.develop.commons.utils.protocol;
+
+import org.develop.commons.model.mainUse.Funko;
+import org.develop.commons.model.mainUse.Modelo;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.ProtocolException;
+import java.nio.ByteBuffer;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FunkoCodecTest {
+
+    private Funko funko1, funko2;
+
+    @BeforeEach
+    void setup(){
+        funko1 = Funko.builder()
+                .myId(7L)
+                .id(1)
+                .uuid(UUID.randomUUID())
+                .name("Spider-Man ñ")
+                .modelo(Modelo.MARVEL)
+                .precio(15.99)
+                .fecha_lanzamiento(LocalDate.of(2023,5,12))
+                .created_at(LocalDateTime.of(2023,10,1,12,30,15,123456789))
+                .updated_at(LocalDateTime.of(2023,10,2,8,0))
+                .build();
+
+        funko2 = Funko.builder()
+                .id(2)
+                .precio(1.5)
+                .created_at(null)
+                .updated_at(null)
+                .build();
+    }
+
+    @Test
+    void funkoRoundTripTest() throws IOException {
+        Funko decoded = FunkoCodec.readFunko(input(encode(List.of(funko1))));
+
+        assertEquals(funko1, decoded);
+    }
+
+    @Test
+    void funkoWithNullFieldsRoundTripTest() throws IOException {
+        Funko decoded = FunkoCodec.readFunko(input(encode(List.of(funko2))));
+
+        assertAll(
+                () -> assertEquals(funko2, decoded),
+                () -> assertNull(decoded.getUuid()),
+                () -> assertNull(decoded.getModelo()),
+                () -> assertNull(decoded.getCreated_at())
+        );
+    }
+
+    @Test
+    void funkoListFrameTest() throws IOException {
+        ByteBuffer frame = FunkoCodec.encodeFunkoListFrame(42L, List.of(funko1, funko2));
+
+        assertAll(
+                () -> assertEquals(frame.remaining() - FrameProtocol.HEADER_SIZE, frame.getInt(0)),
+                () -> assertEquals(FrameProtocol.FUNKO_LIST, frame.get(4))
+        );
+
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(frame.array(), FrameProtocol.HEADER_SIZE, frame.getInt(0)));
+        assertAll(
+                () -> assertEquals(42L, FunkoCodec.readRequestId(in)),
+                () -> assertEquals(List.of(funko1, funko2), FunkoCodec.readFunkos(in))
+        );
+    }
+
+    @Test
+    void funkoFrameWithoutRequestIdTest() throws IOException {
+        ByteBuffer frame = FunkoCodec.encodeFunkoFrame(null, funko1);
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(frame.array(), FrameProtocol.HEADER_SIZE, frame.getInt(0)));
+
+        assertAll(
+                () -> assertEquals(FrameProtocol.FUNKO, frame.get(4)),
+                () -> assertNull(FunkoCodec.readRequestId(in)),
+                () -> assertEquals(funko1, FunkoCodec.readFunko(in))
+        );
+    }
+
+    @Test
+    void invalidLengthsAreRejectedTest() throws IOException {
+        byte[] funko = encode(List.of(funko1));
+        byte[] badName = funko.clone();
+        ByteBuffer.wrap(badName).putInt(1 + 8 + 4 + 16, Integer.MAX_VALUE);
+        ByteBuffer negativeName = ByteBuffer.wrap(funko.clone()).putInt(1 + 8 + 4 + 16, -1);
+        byte[] hugeList = ByteBuffer.allocate(4 + funko.length).putInt(Integer.MAX_VALUE).put(funko).array();
+        byte[] negativeList = ByteBuffer.allocate(4).putInt(-1).array();
+
+        assertAll(
+                () -> assertThrows(ProtocolException.class, () -> FunkoCodec.readFunko(input(badName))),
+                () -> assertThrows(ProtocolException.class, () -> FunkoCodec.readFunko(input(negativeName.array()))),
+                () -> assertThrows(ProtocolException.class, () -> FunkoCodec.readFunkos(input(hugeList))),
+                () -> assertThrows(ProtocolException.class, () -> FunkoCodec.readFunkos(input(negativeList)))
+        );
+    }
+
+    private byte[] encode(List<Funko> funkos) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        for (Funko funko : funkos) {
+            FunkoCodec.writeFunko(out, funko);
+        }
+        return bytes.toByteArray();
+    }
+
+    private DataInputStream input(byte[] bytes) {
+        return new DataInputStream(new ByteArrayInputStream(bytes));
+    }
+}
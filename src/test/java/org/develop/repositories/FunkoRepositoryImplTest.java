@@ -9,6 +9,7 @@ import org.develop.services.database.DatabaseManager;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
 
 import java.sql.SQLException;
 import java.time.LocalDate;
@@ -64,6 +65,61 @@ class FunkoRepositoryImplTest {
         );
     }
 
+    @Test
+    void saveWithoutUuidTest() {
+        funko1.setUuid(null);
+        Funko fkSave = funkoRepository.save(funko1).block();
+
+        assertAll(
+                ()-> assertNotNull(fkSave.getUuid()),
+                ()-> assertEquals(7, fkSave.getUuid().version())
+        );
+    }
+
+    @Test
+    void saveDuplicateUuidTest() {
+        funkoRepository.save(funko1).block();
+        funko2.setUuid(funko1.getUuid());
+
+        assertThrows(Exception.class, () -> funkoRepository.save(funko2).block());
+    }
+
+    @Test
+    void saveConcurrentTest() {
+        List<Funko> saved = Flux.range(0, 50)
+                .flatMap(i -> funkoRepository.save(Funko.builder()
+                        .uuid(UUID.randomUUID())
+                        .name("concurrent" + i)
+                        .modelo(Modelo.OTROS)
+                        .precio(1.0)
+                        .fecha_lanzamiento(LocalDate.of(2024,1,20))
+                        .build()))
+                .collectList().block();
+
+        assertAll(
+                ()-> assertEquals(50, saved.size()),
+                ()-> assertEquals(50, saved.stream().map(Funko::getId).distinct().count()),
+                ()-> assertEquals(50, saved.stream().map(Funko::getMyId).distinct().count()),
+                ()-> assertEquals(50, funkoRepository.findAll().count().block())
+        );
+    }
+
+    @Test
+    void saveAllTest() {
+        List<Funko> saved = funkoRepository.saveAll(Flux.just(funko1, funko2)).collectList().block();
+        List<Funko> list = funkoRepository.findAll().collectList().block();
+
+        assertAll(
+                ()-> assertEquals(2, saved.size()),
+                ()-> assertNotEquals(saved.get(0).getMyId(), saved.get(1).getMyId()),
+                ()-> assertEquals(list.get(0).getId(), saved.get(0).getId()),
+                ()-> assertEquals(funko2.getUuid(), saved.get(1).getUuid()),
+                ()-> assertEquals(2, list.size()),
+                ()-> assertEquals(funko1.getUuid(), list.get(0).getUuid()),
+                ()-> assertEquals(funko2.getUuid(), list.get(1).getUuid())
+        );
+    }
+
     @Test
     void updateTest() {
      Funko fknSave = funkoRepository.save(funko1).block();
@@ -103,6 +159,48 @@ class FunkoRepositoryImplTest {
         );
     }
 
+    @Test
+    void findByModeloTest() {
+        funkoRepository.save(funko1).block();
+        funkoRepository.save(funko2).block();
+
+        List<Funko> list = funkoRepository.findByModelo(Modelo.MARVEL).collectList().block();
+
+        assertAll(
+                ()-> assertEquals(1, list.size()),
+                ()-> assertEquals(funko2.getUuid(), list.get(0).getUuid())
+        );
+    }
+
+    @Test
+    void findByLaunchDateBetweenTest() {
+        funkoRepository.save(funko1).block();
+        funkoRepository.save(funko2).block();
+
+        List<Funko> list = funkoRepository.findByLaunchDateBetween(LocalDate.of(2024,1,1), LocalDate.of(2025,1,1)).collectList().block();
+
+        assertAll(
+                ()-> assertEquals(1, list.size()),
+                ()-> assertEquals(funko1.getUuid(), list.get(0).getUuid())
+        );
+    }
+
+    @Test
+    void findPageTest() {
+        funkoRepository.save(funko1).block();
+        funkoRepository.save(funko2).block();
+
+        List<Funko> first = funkoRepository.findPage(0, 1).collectList().block();
+        List<Funko> second = funkoRepository.findPage(first.get(0).getId(), 5).collectList().block();
+
+        assertAll(
+                ()-> assertEquals(1, first.size()),
+                ()-> assertEquals(funko1.getUuid(), first.get(0).getUuid()),
+                ()-> assertEquals(1, second.size()),
+                ()-> assertEquals(funko2.getUuid(), second.get(0).getUuid())
+        );
+    }
+
     @Test
     void findByIdTest() {
     Funko fknSave = funkoRepository.save(funko1).block();
@@ -117,6 +215,20 @@ class FunkoRepositoryImplTest {
     );
     }
 
+    @Test
+    void findAllByIdTest() {
+        Funko fk1 = funkoRepository.save(funko1).block();
+        Funko fk2 = funkoRepository.save(funko2).block();
+
+        List<Funko> list = funkoRepository.findAllById(List.of(fk1.getId(), fk2.getId(), 1000)).collectList().block();
+
+        assertAll(
+                ()-> assertEquals(2, list.size()),
+                ()-> assertEquals(funko1.getUuid(), list.get(0).getUuid()),
+                ()-> assertEquals(funko2.getUuid(), list.get(1).getUuid())
+        );
+    }
+
     @Test
     void findByIdErrorTest(){
      Optional<Funko> fknId = funkoRepository.findById(100).blockOptional();
@@ -134,6 +246,19 @@ class FunkoRepositoryImplTest {
         );
     }
 
+    @Test
+    void deleteByIdReturningTest() {
+        Funko fknSave = funkoRepository.save(funko1).block();
+        Optional<Funko> deleted = funkoRepository.deleteByIdReturning(fknSave.getId()).blockOptional();
+        Optional<Funko> again = funkoRepository.deleteByIdReturning(fknSave.getId()).blockOptional();
+
+        assertAll(
+                ()-> assertTrue(deleted.isPresent()),
+                ()-> assertEquals(funko1.getUuid(), deleted.get().getUuid()),
+                ()-> assertFalse(again.isPresent())
+        );
+    }
+
     @Test
     void deleteAllTest() {
         funkoRepository.save(funko1).block();
@@ -0,0 +1,80 @@
+package org.develop.repositories.funkos;
+
+import org.develop.commons.model.mainUse.Funko;
+import org.develop.commons.model.mainUse.Modelo;
+import org.develop.services.database.DatabaseManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WriteCoalescerTest {
+
+    private Funko funko1,funko2;
+
+    @BeforeEach
+    void setup() {
+        funko1 = Funko.builder()
+                .uuid(UUID.randomUUID())
+                .name("test")
+                .modelo(Modelo.OTROS)
+                .precio(1.0)
+                .fecha_lanzamiento(LocalDate.of(2024,1,20))
+                .build();
+
+        funko2 = Funko.builder()
+                .uuid(UUID.randomUUID())
+                .name("test2")
+                .modelo(Modelo.MARVEL)
+                .precio(1.5)
+                .fecha_lanzamiento(LocalDate.of(2026,4,10))
+                .build();
+    }
+
+    @Test
+    void slowSubscriberDoesNotBlockNextBatchTest() throws InterruptedException {
+        WriteCoalescer coalescer = new WriteCoalescer(DatabaseManager.getInstance().getWriteConnectionFactory(), 128, Duration.ZERO);
+        CountDownLatch slowClient = new CountDownLatch(1);
+        CountDownLatch firstDelivered = new CountDownLatch(1);
+
+        coalescer.submit(connection -> Mono.just(funko1))
+                .subscribe(funko -> {
+                    firstDelivered.countDown();
+                    try {
+                        slowClient.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                });
+        assertTrue(firstDelivered.await(5, TimeUnit.SECONDS));
+        Funko second = coalescer.submit(connection -> Mono.just(funko2)).block(Duration.ofSeconds(5));
+        slowClient.countDown();
+
+        assertEquals(funko2, second);
+    }
+
+    @Test
+    void cancelledWriteIsNotExecutedTest() {
+        WriteCoalescer coalescer = new WriteCoalescer(DatabaseManager.getInstance().getWriteConnectionFactory(), 128, Duration.ofMillis(200));
+        AtomicInteger executed = new AtomicInteger();
+
+        Disposable cancelled = coalescer.submit(connection -> Mono.fromRunnable(executed::incrementAndGet))
+                .subscribe();
+        cancelled.dispose();
+        Funko other = coalescer.submit(connection -> Mono.just(funko1)).block(Duration.ofSeconds(5));
+
+        assertAll(
+                ()-> assertEquals(funko1, other),
+                ()-> assertEquals(0, executed.get())
+        );
+    }
+}
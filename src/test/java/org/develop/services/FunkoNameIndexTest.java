@@ -0,0 +1,63 @@
+package org.develop.services;
+
+import org.develop.services.funkos.FunkoNameIndex;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FunkoNameIndexTest {
+
+    private FunkoNameIndex index;
+
+    @BeforeEach
+    void setup(){
+        index = new FunkoNameIndex();
+        index.put(3, "Spiderman Delight");
+        index.put(1, "Stitch Hula");
+        index.put(2, "Pokémon Pikachu");
+        index.put(4, "Iron Spider");
+    }
+
+    @Test
+    void findContaining() {
+        assertAll(
+                ()-> assertEquals(List.of(3, 4), index.findContaining("spider")),
+                ()-> assertEquals(List.of(2), index.findContaining("POKEMON")),
+                ()-> assertEquals(List.of(1, 2, 3, 4), index.findContaining("i")),
+                ()-> assertEquals(List.of(), index.findContaining("batman"))
+        );
+    }
+
+    @Test
+    void findStartingWith() {
+        assertAll(
+                ()-> assertEquals(List.of(3), index.findStartingWith("Spi")),
+                ()-> assertEquals(List.of(1, 3), index.findStartingWith("s")),
+                ()-> assertEquals(List.of(), index.findStartingWith("Spider Iron"))
+        );
+    }
+
+    @Test
+    void putReplacesName() {
+        index.put(4, "Iron Man");
+
+        assertAll(
+                ()-> assertEquals(List.of(3), index.findContaining("spider")),
+                ()-> assertEquals(List.of(4), index.findContaining("iron man")),
+                ()-> assertEquals(4, index.size())
+        );
+    }
+
+    @Test
+    void remove() {
+        index.remove(3);
+
+        assertAll(
+                ()-> assertEquals(List.of(4), index.findContaining("spider")),
+                ()-> assertEquals(3, index.size())
+        );
+    }
+}
@@ -17,10 +17,14 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.core.scheduler.Schedulers;
 
+import java.time.Duration;
 import java.time.LocalDate;
 import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -78,6 +82,63 @@ class FunkoServiceImplTest {
         verify(repository,times(1)).findAll();
     }
 
+    @Test
+    void findByModelo() {
+        when(repository.findByModelo(Modelo.MARVEL)).thenReturn(Flux.just(funko2));
+
+        var res = service.findByModelo(Modelo.MARVEL).collectList().block();
+
+        assertAll(
+                ()-> assertEquals(1, res.size()),
+                ()-> assertEquals(funko2.getUuid(), res.get(0).getUuid())
+        );
+
+        verify(repository,times(1)).findByModelo(Modelo.MARVEL);
+    }
+
+    @Test
+    void findByLaunchYear() {
+        when(repository.findByLaunchDateBetween(LocalDate.of(2024,1,1), LocalDate.of(2025,1,1))).thenReturn(Flux.just(funko1));
+
+        var res = service.findByLaunchYear(2024).collectList().block();
+
+        assertAll(
+                ()-> assertEquals(1, res.size()),
+                ()-> assertEquals(funko1.getUuid(), res.get(0).getUuid())
+        );
+
+        verify(repository,times(1)).findByLaunchDateBetween(LocalDate.of(2024,1,1), LocalDate.of(2025,1,1));
+    }
+
+    @Test
+    void findPage() {
+        when(repository.findPage(0, 2)).thenReturn(Flux.just(funko1, funko2));
+
+        var res = service.findPage(null, 1).block();
+
+        assertAll(
+                ()-> assertEquals(1, res.funkos().size()),
+                ()-> assertEquals(funko1.getUuid(), res.funkos().get(0).getUuid()),
+                ()-> assertEquals(funko1.getId(), res.nextCursor())
+        );
+
+        verify(repository,times(1)).findPage(0, 2);
+    }
+
+    @Test
+    void findLastPage() {
+        when(repository.findPage(1, 3)).thenReturn(Flux.just(funko2));
+
+        var res = service.findPage(1, 2).block();
+
+        assertAll(
+                ()-> assertEquals(1, res.funkos().size()),
+                ()-> assertNull(res.nextCursor())
+        );
+
+        verify(repository,times(1)).findPage(1, 3);
+    }
+
     @Test
     void findById() {
         when(repository.findById(1)).thenReturn(Mono.just(funko1));
@@ -93,6 +154,27 @@ class FunkoServiceImplTest {
         verify(repository,times(1)).findById(1);
     }
 
+    @Test
+    void findByIdConcurrentMisses() {
+        AtomicInteger queries = new AtomicInteger();
+        when(repository.findById(1)).thenReturn(Mono.fromCallable(() -> {
+            queries.incrementAndGet();
+            return funko1;
+        }).delayElement(Duration.ofMillis(200)));
+
+        var res = Flux.range(0, 32)
+                .flatMap(i -> service.findById(1).subscribeOn(Schedulers.parallel()))
+                .collectList().block();
+
+        assertAll(
+                ()-> assertEquals(32, res.size()),
+                ()-> assertTrue(res.stream().allMatch(funko -> funko.getUuid().equals(funko1.getUuid()))),
+                ()-> assertEquals(1, queries.get())
+        );
+
+        verify(repository,times(1)).findById(1);
+    }
+
     @Test
     void findByIdError() {
 
@@ -105,13 +187,53 @@ class FunkoServiceImplTest {
         verify(repository, times(1)).findById(1);
     }
 
+    @Test
+    void findByIdNotFoundIsRemembered() {
+        Sinks.Many<Notificacion<Funko>> notifications = Sinks.many().multicast().directBestEffort();
+        when(funkoNotification.getNotificationAsFlux()).thenReturn(notifications.asFlux());
+        when(repository.findById(1)).thenReturn(Mono.empty());
+        service.subscribeCache();
+
+        assertThrows(Exception.class, ()->service.findById(1).block());
+        assertThrows(Exception.class, ()->service.findById(1).block());
+        notifications.tryEmitNext(new Notificacion<>(Notificacion.Tipo.NEW, funko1));
+        var res = service.findById(1).block();
+
+        assertEquals(funko1, res);
+        verify(repository, times(1)).findById(1);
+    }
+
+    @Test
+    void updateNotificationIsWrittenThrough() {
+        Sinks.Many<Notificacion<Funko>> notifications = Sinks.many().multicast().directBestEffort();
+        when(funkoNotification.getNotificationAsFlux()).thenReturn(notifications.asFlux());
+        when(repository.findById(1)).thenReturn(Mono.just(funko1));
+        service.subscribeCache();
+
+        service.findById(1).block();
+        Funko updated = Funko.builder()
+                .id(1)
+                .uuid(funko1.getUuid())
+                .name("updated")
+                .modelo(funko1.getModelo())
+                .precio(funko1.getPrecio())
+                .fecha_lanzamiento(funko1.getFecha_lanzamiento())
+                .build();
+        notifications.tryEmitNext(new Notificacion<>(Notificacion.Tipo.UPDATED, updated));
+        var res = service.findById(1).block();
+
+        assertEquals("updated", res.getName());
+        verify(repository, times(1)).findById(1);
+    }
+
     @Test
     void findByName() {
         var listFunk = List.of(funko1,funko2);
+        funko2.setName("Tést2");
 
-        when(repository.findByName("test")).thenReturn(Flux.fromIterable(listFunk));
+        when(repository.findAll()).thenReturn(Flux.fromIterable(listFunk));
 
-        var res = service.findByName("test").collectList().block();
+        var res = service.findByName("TEST").collectList().block();
 
         assertAll(
                 ()-> assertFalse(res.isEmpty()),
@@ -120,12 +242,92 @@ class FunkoServiceImplTest {
                 ()-> assertEquals(res.get(1).getUuid(),funko2.getUuid())
         );
 
-        verify(repository,times(1)).findByName("test");
+        verify(repository,times(1)).findAll();
+        verify(repository,never()).findByName(anyString());
+    }
+
+    @Test
+    void buildNameIndexSkipsRowsAlreadyNotified() {
+        Sinks.Many<Notificacion<Funko>> notifications = Sinks.many().multicast().directBestEffort();
+        Funko renamed = Funko.builder()
+                .id(1)
+                .uuid(funko1.getUuid())
+                .name("renamed")
+                .modelo(funko1.getModelo())
+                .precio(funko1.getPrecio())
+                .fecha_lanzamiento(funko1.getFecha_lanzamiento())
+                .build();
+        when(funkoNotification.getNotificationAsFlux()).thenReturn(notifications.asFlux());
+        when(repository.findAll()).thenReturn(Flux.just(funko1)
+                .doOnSubscribe(s -> notifications.tryEmitNext(new Notificacion<>(Notificacion.Tipo.UPDATED, renamed))));
+        when(repository.findAllById(List.of(1))).thenReturn(Flux.just(renamed));
+
+        service.buildNameIndex().block();
+        var stale = service.findByName("test").collectList().block();
+        var res = service.findByNamePrefix("ren").collectList().block();
+
+        assertAll(
+                ()-> assertTrue(stale.isEmpty()),
+                ()-> assertEquals(List.of(renamed), res)
+        );
+    }
+
+    @Test
+    void nameIndexSurvivesNotificationWithoutFunko() {
+        Sinks.Many<Notificacion<Funko>> notifications = Sinks.many().multicast().directBestEffort();
+        when(funkoNotification.getNotificationAsFlux()).thenReturn(notifications.asFlux());
+        when(repository.findAll()).thenReturn(Flux.just(funko1));
+        when(repository.findAllById(List.of(2))).thenReturn(Flux.just(funko2));
+
+        service.buildNameIndex().block();
+        notifications.tryEmitNext(new Notificacion<>(Notificacion.Tipo.NEW, null));
+        notifications.tryEmitNext(new Notificacion<>(Notificacion.Tipo.NEW, funko2));
+        var res = service.findByName("test2").collectList().block();
+        var indexed = service.buildNameIndex().block();
+
+        assertAll(
+                ()-> assertEquals(List.of(funko2), res),
+                ()-> assertEquals(2, indexed),
+                ()-> assertEquals(1, notifications.currentSubscriberCount())
+        );
+        verify(repository, times(1)).findAll();
+    }
+
+    @Test
+    void findByNameWithIndex() {
+        Sinks.Many<Notificacion<Funko>> notifications = Sinks.many().multicast().directBestEffort();
+        when(funkoNotification.getNotificationAsFlux()).thenReturn(notifications.asFlux());
+        when(repository.findAll()).thenReturn(Flux.just(funko1, funko2));
+        when(repository.findAllById(List.of(2))).thenReturn(Flux.just(funko2));
+
+        var indexed = service.buildNameIndex().block();
+        notifications.tryEmitNext(new Notificacion<>(Notificacion.Tipo.DELETED, funko1));
+        var res = service.findByName("TEST").collectList().block();
+
+        assertAll(
+                ()-> assertEquals(2, indexed),
+                ()-> assertEquals(List.of(funko2), res)
+        );
+
+        verify(repository, never()).findByName(anyString());
+        verify(repository,times(1)).findAllById(List.of(2));
+    }
+
+    @Test
+    void findByNamePrefixWithIndex() {
+        when(funkoNotification.getNotificationAsFlux()).thenReturn(Flux.never());
+        when(repository.findAll()).thenReturn(Flux.just(funko1, funko2));
+        when(repository.findAllById(List.of(1, 2))).thenReturn(Flux.just(funko1, funko2));
+
+        service.buildNameIndex().block();
+        var res = service.findByNamePrefix("tes").collectList().block();
+
+        assertEquals(List.of(funko1, funko2), res);
+        verify(repository, never()).findById(anyInt());
     }
 
     @Test
     void save() {
-        when(repository.findByUuid(funko1.getUuid())).thenReturn(Mono.just(funko1));
         when(repository.save(funko1)).thenReturn(Mono.just(funko1));
 
         var res = service.saveWithOutNotification(funko1).block();
@@ -139,9 +341,24 @@ class FunkoServiceImplTest {
         verify(repository,times(1)).save(funko1);
     }
 
+    @Test
+    void saveAll() {
+        var funkos = Flux.just(funko1, funko2);
+        when(repository.saveAll(funkos)).thenReturn(funkos);
+
+        var res = service.saveAll(funkos).collectList().block();
+
+        assertAll(
+                ()-> assertEquals(2, res.size()),
+                ()-> assertEquals(funko1.getUuid(), res.get(0).getUuid())
+        );
+
+        verify(repository,times(1)).saveAll(funkos);
+        verify(funkoNotification,times(2)).notify(any());
+    }
+
     @Test
     void saveNoti(){
-        when(repository.findByUuid(funko1.getUuid())).thenReturn(Mono.just(funko1));
         when(repository.save(funko1)).thenReturn(Mono.just(funko1));
         doNothing().when(funkoNotification).notify(any());
 
@@ -153,11 +370,10 @@ class FunkoServiceImplTest {
                 ()-> assertEquals(res.getUuid(),funko1.getUuid())
         );
         verify(repository,times(1)).save(funko1);
-        verify(repository,times(1)).findByUuid(funko1.getUuid());
+        verify(repository,never()).findByUuid(funko1.getUuid());
     }
     @Test
     void update() {
-        when(repository.findById(1)).thenReturn(Mono.just(funko1));
         when(repository.update(funko1)).thenReturn(Mono.just(funko1));
 
         var res = service.updateWithOutNotification(funko1).block();
@@ -167,12 +383,22 @@ class FunkoServiceImplTest {
                 ()-> assertEquals(res.getUuid(),funko1.getUuid())
         );
         verify(repository,times(1)).update(funko1);
-        verify(repository,times(1)).findById(1);
+        verify(repository,never()).findById(1);
+    }
+
+    @Test
+    void updateError() {
+        when(repository.update(funko1)).thenReturn(Mono.empty());
+
+        var res = assertThrows(Exception.class, ()->service.update(funko1).blockOptional());
+
+        assertTrue(res.getMessage().contains("Funko with id 1 not found"));
+
+        verify(repository, times(1)).update(funko1);
     }
 
     @Test
     void updateNoti() {
-        when(repository.findById(1)).thenReturn(Mono.just(funko1));
         when(repository.update(funko1)).thenReturn(Mono.just(funko1));
 
         var res = service.update(funko1).block();
@@ -185,36 +411,34 @@ class FunkoServiceImplTest {
 
     @Test
     void deleteById() {
-        when(repository.deleteById(1)).thenReturn(Mono.just(true));
-        when(repository.findById(1)).thenReturn(Mono.just(funko1));
+        when(repository.deleteByIdReturning(1)).thenReturn(Mono.just(funko1));
         var res = service.deleteByIdWithOutNotification(1).block();
 
         assertEquals(res,funko1);
 
-        verify(repository,times(1)).deleteById(1);
+        verify(repository,times(1)).deleteByIdReturning(1);
     }
 
     @Test
     void deleteByIdNoti() {
-        when(repository.deleteById(1)).thenReturn(Mono.just(true));
-        when(repository.findById(1)).thenReturn(Mono.just(funko1));
+        when(repository.deleteByIdReturning(1)).thenReturn(Mono.just(funko1));
         var res = service.deleteById(1).block();
 
         assertEquals(res,funko1);
 
-        verify(repository,times(1)).deleteById(1);
-        verify(repository,times(1)).findById(1);
+        verify(repository,times(1)).deleteByIdReturning(1);
+        verify(repository,never()).findById(1);
     }
     @Test
     void deletedByIdError(){
 
-        when(repository.findById(1)).thenReturn(Mono.empty());
+        when(repository.deleteByIdReturning(1)).thenReturn(Mono.empty());
 
         var res = assertThrows(Exception.class, ()->service.deleteById(1).blockOptional());
 
         assertTrue(res.getMessage().contains("Funko with id 1 not found"));
 
-        verify(repository, times(1)).findById(1);
+        verify(repository, times(1)).deleteByIdReturning(1);
     }
 
     @Test
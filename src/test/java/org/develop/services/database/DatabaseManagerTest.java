@@ -0,0 +1,35 @@
+package org.develop.services.database;
+
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DatabaseManagerTest {
+
+    @Test
+    void initTablesCreatesIndexesTest() throws SQLException {
+        DatabaseManager.getInstance().initTables();
+
+        List<String> indexes = new ArrayList<>();
+        try (Connection connection = DriverManager.getConnection("jdbc:h2:mem:Funkos;DB_CLOSE_DELAY=-1");
+             Statement statement = connection.createStatement();
+             ResultSet result = statement.executeQuery("SELECT INDEX_NAME FROM INFORMATION_SCHEMA.INDEXES WHERE TABLE_NAME = 'FUNKO'")) {
+            while (result.next()) {
+                indexes.add(result.getString(1));
+            }
+        }
+
+        assertAll(
+                ()-> assertTrue(indexes.contains("IDX_FUNKO_MODELO")),
+                ()-> assertTrue(indexes.contains("IDX_FUNKO_FECHA_LANZAMIENTO"))
+        );
+    }
+}